@@ -0,0 +1,49 @@
+package com.tgelder;
+
+import com.tgelder.network.Network;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query throughput with several threads sharing one network, to catch contention in the shared search state.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentQueryBenchmark {
+
+  @Param({"grid8", "random"})
+  public String shape;
+
+  @Param({"262144"})
+  public int nodes;
+
+  private Network<Integer> network;
+
+  @Setup
+  public void setUp() {
+    network = Graphs.create(shape, nodes).buildRoutingView();
+  }
+
+  private int randomStart() {
+    return ThreadLocalRandom.current().nextInt(network.getNodes().size());
+  }
+
+  @Benchmark
+  public void testGetNodes(Blackhole blackhole) {
+    blackhole.consume(network.getNodes(randomStart(), 20));
+  }
+
+  @Benchmark
+  public void testFindPath(Blackhole blackhole) {
+    blackhole.consume(network.findPath(randomStart(), randomStart()));
+  }
+
+}
@@ -0,0 +1,90 @@
+package com.tgelder;
+
+import com.google.common.collect.ImmutableSet;
+import com.tgelder.network.Edge;
+import com.tgelder.network.Network;
+import com.tgelder.network.NetworkBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of building networks: grid creation, construction from edges directly and through a
+ * {@link NetworkBuilder}, building the routing view, and merging tiles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConstructionBenchmark {
+
+  @Param({"128", "512"})
+  public int width;
+
+  @Param({"grid4", "grid8"})
+  public String neighbours;
+
+  private ImmutableSet<Integer> nodes;
+  private ImmutableSet<Edge<Integer>> edges;
+  private List<Network<Integer>> tiles;
+
+  @Setup
+  public void setUp() {
+    Network<Integer> network = Graphs.create(neighbours, width * width);
+    nodes = network.getNodes();
+    edges = network.getEdges();
+
+    // Eight horizontal strips that overlap by one row, as when stitching map tiles together.
+    tiles = new ArrayList<>();
+    int rows = width / 8;
+    for (int t = 0; t < 8; t++) {
+      int low = t * rows * width;
+      int high = Math.min(width * width, (t + 1) * rows * width + width);
+      tiles.add(new Network<>(
+              nodes.stream().filter(n -> n >= low && n < high).collect(ImmutableSet.toImmutableSet()),
+              edges.stream().filter(e -> e.getFrom() >= low && e.getFrom() < high && e.getTo() >= low
+                      && e.getTo() < high).collect(ImmutableSet.toImmutableSet())));
+    }
+  }
+
+  @Benchmark
+  public Network<Integer> testCreateGridNetwork() {
+    return "grid4".equals(neighbours)
+            ? Network.createGridNetwork(width, width, Graphs.FOUR_DXS, Graphs.FOUR_DYS)
+            : Network.createGridNetwork(width, width, Graphs.EIGHT_DXS, Graphs.EIGHT_DYS);
+  }
+
+  @Benchmark
+  public Network<Integer> testConstruct() {
+    return new Network<>(nodes, edges);
+  }
+
+  @Benchmark
+  public Network<Integer> testNetworkBuilder() {
+    return new NetworkBuilder<Integer>().addNodes(nodes).addEdges(edges.iterator()).build();
+  }
+
+  @Benchmark
+  public Network<Integer> testBuildRoutingView() {
+    return new Network<>(nodes, edges).buildRoutingView();
+  }
+
+  @Benchmark
+  public Network<Integer> testMergeOneByOne() {
+    Network<Integer> merged = tiles.get(0);
+    for (int t = 1; t < tiles.size(); t++) {
+      merged = merged.merge(tiles.get(t));
+    }
+    return merged;
+  }
+
+  @Benchmark
+  public Network<Integer> testMergeAll() {
+    return Network.mergeAll(tiles);
+  }
+
+}
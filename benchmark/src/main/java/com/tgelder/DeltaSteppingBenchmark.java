@@ -0,0 +1,47 @@
+package com.tgelder;
+
+import com.tgelder.network.DeltaStepping;
+import com.tgelder.network.GridNetwork;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A large radius getNodes on the 1024x1024 grid, sequentially and with delta stepping on pools of different sizes.
+ */
+@State(Scope.Benchmark)
+public class DeltaSteppingBenchmark {
+
+  @Param({"1", "2", "4", "8"})
+  public int parallelism;
+
+  private GridNetwork network;
+  private ForkJoinPool pool;
+  private DeltaStepping engine;
+
+  @Setup
+  public void setUp() {
+    int[] neighbourDXs = {-1, 0, 1, 0, -1, 1, 1, -1};
+    int[] neighbourDYs = {0, -1, 0, 1, -1, -1, 1, 1};
+    network = new GridNetwork(1024, 1024, neighbourDXs, neighbourDYs);
+    pool = new ForkJoinPool(parallelism);
+    engine = new DeltaStepping(2, pool);
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public void testSequential(Blackhole blackhole) {
+    blackhole.consume(network.getNodes(network.getIndex(512, 512), 400));
+  }
+
+  @Benchmark
+  public void testDeltaStepping(Blackhole blackhole) {
+    blackhole.consume(network.getNodes(network.getIndex(512, 512), 400, engine));
+  }
+
+}
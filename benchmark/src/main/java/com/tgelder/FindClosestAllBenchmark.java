@@ -0,0 +1,44 @@
+package com.tgelder;
+
+import com.tgelder.network.Network;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Throughput of batched findClosest queries against the number of worker threads.
+ */
+@State(Scope.Benchmark)
+public class FindClosestAllBenchmark {
+
+  @Param({"1", "2", "4", "8"})
+  public int parallelism;
+
+  private Network<Integer> network;
+  private List<Integer> starts;
+  private ForkJoinPool pool;
+
+  @Setup
+  public void setUp() {
+    int[] neighbourDXs = {-1, 0, 1, 0};
+    int[] neighbourDYs = {0, -1, 0, 1};
+    network = Network.createGridNetwork(256, 256, neighbourDXs, neighbourDYs);
+    starts = IntStream.range(0, 1024).map(i -> i * 64).boxed().collect(Collectors.toList());
+    pool = new ForkJoinPool(parallelism);
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public void testFindClosestAll(Blackhole blackhole) {
+    blackhole.consume(network.findClosestAll(starts, n -> n % 1000 == 0, pool));
+  }
+
+}
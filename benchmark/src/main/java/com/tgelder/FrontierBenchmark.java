@@ -0,0 +1,42 @@
+package com.tgelder;
+
+import com.tgelder.network.GridNetwork;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+
+/**
+ * Full Dijkstra over the 1024x1024 grid with the radix heap, which plain grids select, against the binary heap, which
+ * is forced here by giving every cell a cost multiplier of 1.
+ */
+@State(Scope.Benchmark)
+public class FrontierBenchmark {
+
+  @Param({"4", "8"})
+  public int neighbours;
+
+  private GridNetwork radix;
+  private GridNetwork binary;
+
+  @Setup
+  public void setUp() {
+    int[] neighbourDXs = Arrays.copyOf(new int[]{-1, 0, 1, 0, -1, 1, 1, -1}, neighbours);
+    int[] neighbourDYs = Arrays.copyOf(new int[]{0, -1, 0, 1, -1, -1, 1, 1}, neighbours);
+    float[] ones = new float[1024 * 1024];
+    Arrays.fill(ones, 1);
+    radix = new GridNetwork(1024, 1024, neighbourDXs, neighbourDYs);
+    binary = new GridNetwork(1024, 1024, neighbourDXs, neighbourDYs, ones);
+  }
+
+  @Benchmark
+  public void testRadixHeap(Blackhole blackhole) {
+    blackhole.consume(radix.getCostsFrom(0));
+  }
+
+  @Benchmark
+  public void testBinaryHeap(Blackhole blackhole) {
+    blackhole.consume(binary.getCostsFrom(0));
+  }
+
+}
@@ -0,0 +1,78 @@
+package com.tgelder;
+
+import com.google.common.collect.ImmutableSet;
+import com.tgelder.network.Edge;
+import com.tgelder.network.Network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Builds the graph shapes the benchmarks run on. All shapes are seeded so that every run sees the same graph.
+ */
+public class Graphs {
+
+  public static final int[] FOUR_DXS = {-1, 0, 1, 0};
+  public static final int[] FOUR_DYS = {0, -1, 0, 1};
+  public static final int[] EIGHT_DXS = {-1, 0, 1, 0, -1, 1, 1, -1};
+  public static final int[] EIGHT_DYS = {0, -1, 0, 1, -1, -1, 1, 1};
+
+  private Graphs() {
+  }
+
+  /**
+   * Returns a network of about the given number of nodes with the given shape: "grid4" or "grid8" for square grids,
+   * "random" for a sparse random graph with four edges out of each node, or "scalefree" for a preferential attachment
+   * graph with two edges each way per node added.
+   */
+  public static Network<Integer> create(String shape, int nodes) {
+    int width = (int) Math.sqrt(nodes);
+    switch (shape) {
+      case "grid4":
+        return Network.createGridNetwork(width, width, FOUR_DXS, FOUR_DYS);
+      case "grid8":
+        return Network.createGridNetwork(width, width, EIGHT_DXS, EIGHT_DYS);
+      case "random":
+        return random(nodes, 4, new Random(1));
+      case "scalefree":
+        return scaleFree(nodes, 2, new Random(1));
+      default:
+        throw new IllegalArgumentException("Unknown shape " + shape);
+    }
+  }
+
+  private static ImmutableSet<Integer> nodes(int count) {
+    return IntStream.range(0, count).boxed().collect(ImmutableSet.toImmutableSet());
+  }
+
+  public static Network<Integer> random(int nodes, int degree, Random random) {
+    ImmutableSet.Builder<Edge<Integer>> edges = ImmutableSet.builder();
+    for (int from = 0; from < nodes; from++) {
+      for (int i = 0; i < degree; i++) {
+        edges.add(new Edge<>(from, random.nextInt(nodes), 1 + random.nextInt(10)));
+      }
+    }
+    return new Network<>(nodes(nodes), edges.build());
+  }
+
+  public static Network<Integer> scaleFree(int nodes, int links, Random random) {
+    ImmutableSet.Builder<Edge<Integer>> edges = ImmutableSet.builder();
+    // Each node appears once per edge end, so picking uniformly from here picks nodes in proportion to degree.
+    List<Integer> ends = new ArrayList<>();
+    ends.add(0);
+    for (int node = 1; node < nodes; node++) {
+      for (int i = 0; i < links; i++) {
+        int target = ends.get(random.nextInt(ends.size()));
+        double cost = 1 + random.nextInt(10);
+        edges.add(new Edge<>(node, target, cost));
+        edges.add(new Edge<>(target, node, cost));
+        ends.add(target);
+        ends.add(node);
+      }
+    }
+    return new Network<>(nodes(nodes), edges.build());
+  }
+
+}
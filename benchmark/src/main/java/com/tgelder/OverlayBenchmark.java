@@ -0,0 +1,55 @@
+package com.tgelder;
+
+import com.tgelder.network.MultiLevelOverlay;
+import com.tgelder.network.Network;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random point to point distances on a large network with bidirectional Dijkstra and with a multi-level overlay.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OverlayBenchmark {
+
+  @Param({"grid4", "grid8"})
+  public String shape;
+
+  @Param({"262144"})
+  public int nodes;
+
+  private Network<Integer> network;
+  private MultiLevelOverlay<Integer> overlay;
+  private int[] starts;
+  private int[] goals;
+  private int next = 0;
+
+  @Setup
+  public void setUp() {
+    network = Graphs.create(shape, nodes).buildRoutingView();
+    overlay = MultiLevelOverlay.build(network);
+    Random random = new Random(2);
+    starts = random.ints(1024, 0, network.getNodes().size()).toArray();
+    goals = random.ints(1024, 0, network.getNodes().size()).toArray();
+  }
+
+  @Benchmark
+  public void testDijkstra(Blackhole blackhole) {
+    next = (next + 1) & (starts.length - 1);
+    blackhole.consume(network.distance(starts[next], goals[next]));
+  }
+
+  @Benchmark
+  public void testOverlay(Blackhole blackhole) {
+    next = (next + 1) & (starts.length - 1);
+    blackhole.consume(overlay.distance(starts[next], goals[next]));
+  }
+
+}
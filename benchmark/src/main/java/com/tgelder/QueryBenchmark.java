@@ -0,0 +1,74 @@
+package com.tgelder;
+
+import com.tgelder.network.Network;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single threaded query throughput and latency percentiles across graph shapes, sizes and query radii. Start nodes
+ * cycle through a fixed random sequence so that no one start dominates.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+
+  @Param({"grid4", "grid8", "random", "scalefree"})
+  public String shape;
+
+  @Param({"16384", "262144"})
+  public int nodes;
+
+  @Param({"10", "50"})
+  public int radius;
+
+  private Network<Integer> network;
+  private int[] starts;
+  private int next = 0;
+
+  @Setup
+  public void setUp() {
+    network = Graphs.create(shape, nodes).buildRoutingView();
+    Random random = new Random(2);
+    starts = random.ints(1024, 0, network.getNodes().size()).toArray();
+  }
+
+  private int nextStart() {
+    next = (next + 1) & (starts.length - 1);
+    return starts[next];
+  }
+
+  @Benchmark
+  public void testGetNodes(Blackhole blackhole) {
+    blackhole.consume(network.getNodes(nextStart(), radius));
+  }
+
+  @Benchmark
+  public void testFindClosest(Blackhole blackhole) {
+    int start = nextStart();
+    int modulus = radius * radius;
+    blackhole.consume(network.findClosest(start, n -> n % modulus == 0));
+  }
+
+  @Benchmark
+  public void testFindKClosest(Blackhole blackhole) {
+    blackhole.consume(network.findKClosest(nextStart(), n -> n % 7 == 0, radius));
+  }
+
+  @Benchmark
+  public void testFindPath(Blackhole blackhole) {
+    blackhole.consume(network.findPath(nextStart(), nextStart()));
+  }
+
+  @Benchmark
+  public void testIsochrone(Blackhole blackhole) {
+    blackhole.consume(network.getIsochrone(nextStart(), radius / 4.0, radius / 2.0, radius));
+  }
+
+}
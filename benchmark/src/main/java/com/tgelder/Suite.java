@@ -0,0 +1,26 @@
+package com.tgelder;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so that allocation rates are reported next to the timings. Any
+ * JMH command line options, such as a benchmark name pattern or -p to pin parameters, are passed through:
+ *
+ * <pre>java -cp target/benchmarks.jar com.tgelder.Suite QueryBenchmark -p shape=grid8</pre>
+ */
+public class Suite {
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    new Runner(new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build())
+            .run();
+  }
+
+}
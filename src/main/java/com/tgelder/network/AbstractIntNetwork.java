@@ -0,0 +1,300 @@
+package com.tgelder.network;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Searches over a network whose nodes are the ints 0 to size - 1. Subclasses only have to say how to visit the
+ * edges into and out of a node.
+ */
+public abstract class AbstractIntNetwork {
+
+  public abstract int size();
+
+  public abstract void forEachOut(int node, IntDoubleConsumer consumer);
+
+  public abstract void forEachIn(int node, IntDoubleConsumer consumer);
+
+  /**
+   * Whether every edge cost is non-negative and finite and they are either whole numbers or take only a few distinct
+   * values. Searches over such networks without a heuristic use a radix heap rather than a binary heap.
+   */
+  protected boolean hasDiscreteCosts() {
+    return false;
+  }
+
+  public Stream<Edge<Integer>> getOut(int node) {
+    Stream.Builder<Edge<Integer>> builder = Stream.builder();
+    forEachOut(node, (to, cost) -> builder.add(new Edge<>(node, to, cost)));
+    return builder.build();
+  }
+
+  public Stream<Edge<Integer>> getIn(int node) {
+    Stream.Builder<Edge<Integer>> builder = Stream.builder();
+    forEachIn(node, (from, cost) -> builder.add(new Edge<>(from, node, cost)));
+    return builder.build();
+  }
+
+  public IntStream getBelow(int node) {
+    IntStream.Builder builder = IntStream.builder();
+    forEachOut(node, (to, cost) -> builder.add(to));
+    return builder.build().distinct();
+  }
+
+  public IntStream getAbove(int node) {
+    IntStream.Builder builder = IntStream.builder();
+    forEachIn(node, (from, cost) -> builder.add(from));
+    return builder.build().distinct();
+  }
+
+  /**
+   * Returns the cost of the cheapest path from start to every node, or infinity where there is none.
+   */
+  public double[] getCostsFrom(int start) {
+    return getCosts(start, true);
+  }
+
+  /**
+   * Returns the cost of the cheapest path from every node to goal, or infinity where there is none.
+   */
+  public double[] getCostsTo(int goal) {
+    return getCosts(goal, false);
+  }
+
+  private double[] getCosts(int start, boolean forward) {
+    double[] costs = new double[size()];
+    Arrays.fill(costs, Double.POSITIVE_INFINITY);
+    SearchContext context = SearchContext.acquire();
+    try {
+      context.start(this, start, forward, null);
+      for (int node = context.next(); node >= 0; node = context.next()) {
+        costs[node] = context.getCost(node);
+      }
+    } finally {
+      context.release();
+    }
+    return costs;
+  }
+
+  /**
+   * Returns the nodes satisfying the predicate that are closest to start, excluding start itself.
+   */
+  public int[] findClosest(int start, IntPredicate stoppingCondition) {
+    SearchContext context = SearchContext.acquire();
+    try {
+      return findClosest(start, stoppingCondition, context);
+    } finally {
+      context.release();
+    }
+  }
+
+  public int[] findClosest(int start, IntPredicate stoppingCondition, SearchContext context) {
+    return findClosest(start, stoppingCondition, null, context);
+  }
+
+  /**
+   * As {@link #findClosest(int, IntPredicate, SearchContext)}, but never searching through nodes that fail allowed.
+   */
+  int[] findClosest(int start, IntPredicate stoppingCondition, IntPredicate allowed, SearchContext context) {
+    return collect(start, stoppingCondition, 0, allowed, context);
+  }
+
+  /**
+   * Returns the nodes satisfying the predicate that are closest to start, excluding start, with their costs and the
+   * paths to them.
+   */
+  public SearchResult<Integer> findClosestPaths(int start, IntPredicate stoppingCondition) {
+    SearchContext context = SearchContext.acquire();
+    try {
+      int[] matches = collect(start, stoppingCondition, 0, null, context);
+      return SearchResult.of(start, matches, context, NodeDictionary.integers(size()), this::getCheapestEdge);
+    } finally {
+      context.release();
+    }
+  }
+
+  /**
+   * Returns the k nodes satisfying the predicate that are closest to start, excluding start, in order of cost with the
+   * paths to them. Fewer are returned if fewer can be reached. Ties at the kth cost are broken arbitrarily.
+   */
+  public SearchResult<Integer> findKClosest(int start, IntPredicate predicate, int k) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k must be positive");
+    }
+    SearchContext context = SearchContext.acquire();
+    try {
+      int[] matches = collect(start, predicate, k, null, context);
+      return SearchResult.of(start, matches, context, NodeDictionary.integers(size()), this::getCheapestEdge);
+    } finally {
+      context.release();
+    }
+  }
+
+  /**
+   * Settles nodes from start in order of cost, collecting those that satisfy predicate until k have been found or, if
+   * k is 0, until the nodes found so far are all closer than the next one.
+   */
+  int[] collect(int start, IntPredicate predicate, int k, IntPredicate allowed, SearchContext context) {
+    int[] out = new int[4];
+    int count = 0;
+    double closestCost = Double.NaN;
+
+    context.start(this, start, true, null);
+    context.restrict(allowed);
+    for (int node = context.next(); node >= 0; node = context.next()) {
+      double cost = context.getCost(node);
+      if (k == 0 && cost > closestCost) {
+        break;
+      }
+      if (node != start && predicate.test(node)) {
+        closestCost = cost;
+        out = append(out, count++, node);
+        if (count == k) {
+          break;
+        }
+      }
+    }
+
+    return Arrays.copyOf(out, count);
+  }
+
+  Edge<Integer> getCheapestEdge(int from, int to) {
+    double[] cheapest = {Double.POSITIVE_INFINITY};
+    forEachOut(from, (node, cost) -> {
+      if (node == to && cost < cheapest[0]) {
+        cheapest[0] = cost;
+      }
+    });
+    return new Edge<>(from, to, cheapest[0]);
+  }
+
+  /**
+   * Returns the nodes reachable from start at a cost below maxCost, in order of increasing cost.
+   */
+  public int[] getNodes(int start, int maxCost) {
+    SearchContext context = SearchContext.acquire();
+    try {
+      return getNodes(start, maxCost, context);
+    } finally {
+      context.release();
+    }
+  }
+
+  public int[] getNodes(int start, int maxCost, SearchContext context) {
+    int[] out = new int[16];
+    int count = 0;
+
+    context.start(this, start, true, null);
+    for (int node = context.next(); node >= 0; node = context.next()) {
+      if (context.getCost(node) >= maxCost) {
+        break;
+      }
+      out = append(out, count++, node);
+    }
+
+    return Arrays.copyOf(out, count);
+  }
+
+  /**
+   * Splits the nodes reachable from start into bands by cost from a single search. Band i holds the nodes costing at
+   * least thresholds[i - 1] and less than thresholds[i], so band 0 includes start.
+   */
+  public int[][] getBands(int start, double[] thresholds) {
+    checkThresholds(thresholds);
+    int[][] bands = new int[thresholds.length][];
+    SearchContext context = SearchContext.acquire();
+    try {
+      context.start(this, start, true, null);
+      int band = 0;
+      int[] out = new int[16];
+      int count = 0;
+      for (int node = context.next(); node >= 0 && band < thresholds.length; node = context.next()) {
+        double cost = context.getCost(node);
+        while (band < thresholds.length && cost >= thresholds[band]) {
+          bands[band++] = Arrays.copyOf(out, count);
+          count = 0;
+        }
+        if (band < thresholds.length) {
+          out = append(out, count++, node);
+        }
+      }
+      for (; band < thresholds.length; band++) {
+        bands[band] = Arrays.copyOf(out, count);
+        count = 0;
+      }
+    } finally {
+      context.release();
+    }
+    return bands;
+  }
+
+  static void checkThresholds(double[] thresholds) {
+    for (int i = 0; i < thresholds.length; i++) {
+      if (Double.isNaN(thresholds[i]) || (i > 0 && thresholds[i] <= thresholds[i - 1])) {
+        throw new IllegalArgumentException("Thresholds must be in strictly increasing order");
+      }
+    }
+  }
+
+  /**
+   * Returns the nodes reachable from start at a cost below maxCost using a parallel delta stepping search, in no
+   * particular order.
+   */
+  public int[] getNodes(int start, int maxCost, DeltaStepping engine) {
+    return engine.getNodes(this, start, maxCost);
+  }
+
+  static int[] append(int[] array, int index, int value) {
+    if (index == array.length) {
+      array = Arrays.copyOf(array, index * 2);
+    }
+    array[index] = value;
+    return array;
+  }
+
+  /**
+   * Runs A* from start until goal is settled, leaving the predecessors in the context. Returns the cost to goal, or
+   * NaN if it cannot be reached.
+   */
+  double searchTo(int start, int goal, IntToDoubleFunction heuristic, SearchContext context) {
+    context.start(this, start, true, heuristic);
+    for (int node = context.next(); node >= 0; node = context.next()) {
+      if (node == goal) {
+        return context.getCost(goal);
+      }
+    }
+    return Double.NaN;
+  }
+
+  /**
+   * Runs bidirectional Dijkstra between start and goal, leaving the predecessors in the two contexts. Returns the node
+   * where the cheapest path found by the two searches meets, or -1 if there is no path.
+   */
+  int searchBidirectional(int start, int goal, SearchContext forward, SearchContext backward) {
+    forward.start(this, start, true, null);
+    backward.start(this, goal, false, null);
+    if (start == goal) {
+      return start;
+    }
+    forward.meet(backward);
+
+    while (!forward.isExhausted() && !backward.isExhausted()) {
+      double forwardKey = forward.peekKey();
+      double backwardKey = backward.peekKey();
+      if (forwardKey + backwardKey >= forward.getBest()) {
+        break;
+      }
+      if (forwardKey <= backwardKey) {
+        forward.next();
+      } else {
+        backward.next();
+      }
+    }
+
+    return forward.getMeeting();
+  }
+
+}
@@ -0,0 +1,217 @@
+package com.tgelder.network;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * The strongly connected components of a network and the DAG between them. Components are numbered so that every
+ * edge between two components goes from a higher number to a lower one, so sink components come first. Only the
+ * shape of the network matters, so cost updates do not invalidate the index.
+ *
+ * <p>{@link TargetClass}es built on the index let {@link #findClosest} answer queries with no reachable target
+ * without searching, and skip components from which no target can be reached.
+ */
+public class ComponentIndex<T> {
+
+  private final NodeIndex<T> index;
+  private final AbstractIntNetwork network;
+  private final int[] components;
+  private final int componentCount;
+  private final int[] successorOffsets;
+  private final int[] successors;
+  private final Supplier<SearchListener> listener;
+
+  /**
+   * Finds the components with Kosaraju's algorithm, using explicit stacks so that long paths cannot overflow the call
+   * stack.
+   */
+  ComponentIndex(NodeIndex<T> index, AbstractIntNetwork network, Supplier<SearchListener> listener) {
+    this.index = index;
+    this.network = network;
+    this.listener = listener;
+    int size = network.size();
+
+    int[] finished = finishOrder(network);
+
+    components = new int[size];
+    Arrays.fill(components, -1);
+    int discovered = 0;
+    IntList stack = new IntList();
+    for (int i = size - 1; i >= 0; i--) {
+      int root = finished[i];
+      if (components[root] >= 0) {
+        continue;
+      }
+      int component = discovered++;
+      components[root] = component;
+      stack.add(root);
+      while (!stack.isEmpty()) {
+        network.forEachIn(stack.pop(), (from, cost) -> {
+          if (components[from] < 0) {
+            components[from] = component;
+            stack.add(from);
+          }
+        });
+      }
+    }
+    componentCount = discovered;
+
+    // Kosaraju finds source components first, so flip the numbers to put sinks first.
+    for (int node = 0; node < size; node++) {
+      components[node] = componentCount - 1 - components[node];
+    }
+
+    int[] nodeOffsets = new int[componentCount + 1];
+    for (int component : components) {
+      nodeOffsets[component + 1]++;
+    }
+    for (int c = 0; c < componentCount; c++) {
+      nodeOffsets[c + 1] += nodeOffsets[c];
+    }
+    int[] cursors = Arrays.copyOf(nodeOffsets, componentCount);
+    int[] nodesByComponent = new int[size];
+    for (int node = 0; node < size; node++) {
+      nodesByComponent[cursors[components[node]]++] = node;
+    }
+
+    successorOffsets = new int[componentCount + 1];
+    IntList successorList = new IntList();
+    int[] stamps = new int[componentCount];
+    for (int c = 0; c < componentCount; c++) {
+      int component = c;
+      for (int i = nodeOffsets[c]; i < nodeOffsets[c + 1]; i++) {
+        network.forEachOut(nodesByComponent[i], (to, cost) -> {
+          int successor = components[to];
+          if (successor != component && stamps[successor] != component + 1) {
+            stamps[successor] = component + 1;
+            successorList.add(successor);
+          }
+        });
+      }
+      successorOffsets[c + 1] = successorList.size();
+    }
+    successors = successorList.toArray();
+  }
+
+  private static int[] finishOrder(AbstractIntNetwork network) {
+    int size = network.size();
+    IntList finished = new IntList();
+    boolean[] visited = new boolean[size];
+    // A node is pushed as itself when reached and as ~node to mark where it finishes, below its children.
+    IntList stack = new IntList();
+    for (int root = 0; root < size; root++) {
+      if (visited[root]) {
+        continue;
+      }
+      stack.add(root);
+      while (!stack.isEmpty()) {
+        int entry = stack.pop();
+        if (entry < 0) {
+          finished.add(~entry);
+        } else if (!visited[entry]) {
+          visited[entry] = true;
+          stack.add(~entry);
+          network.forEachOut(entry, (to, cost) -> {
+            if (!visited[to]) {
+              stack.add(to);
+            }
+          });
+        }
+      }
+    }
+    return finished.toArray();
+  }
+
+  public int getComponentCount() {
+    return componentCount;
+  }
+
+  /**
+   * Returns the component of node, or -1 if it is not in the network.
+   */
+  public int getComponent(T node) {
+    int id = index.getId(node);
+    return id < 0 ? -1 : components[id];
+  }
+
+  int componentOf(int node) {
+    return components[node];
+  }
+
+  public boolean isStronglyConnected(T a, T b) {
+    int component = getComponent(a);
+    return component >= 0 && component == getComponent(b);
+  }
+
+  /**
+   * Returns the components that some edge leads to directly from component, all of which are numbered lower.
+   */
+  public int[] getSuccessors(int component) {
+    return Arrays.copyOfRange(successors, successorOffsets[component], successorOffsets[component + 1]);
+  }
+
+  int getSuccessorStart(int component) {
+    return successorOffsets[component];
+  }
+
+  int getSuccessorEnd(int component) {
+    return successorOffsets[component + 1];
+  }
+
+  int getSuccessor(int i) {
+    return successors[i];
+  }
+
+  NodeIndex<T> getIndex() {
+    return index;
+  }
+
+  public TargetClass<T> createTargetClass(Predicate<T> predicate) {
+    return new TargetClass<>(this, predicate);
+  }
+
+  /**
+   * As {@link Network#findClosest}, for the nodes in targets. Returns immediately if no target can be reached from
+   * start, and never searches through components from which no target can be reached.
+   */
+  public Set<T> findClosest(T start, TargetClass<T> targets) {
+    SearchContext context = SearchContext.acquire();
+    try {
+      return findClosest(start, targets, context);
+    } finally {
+      context.release();
+    }
+  }
+
+  public Set<T> findClosest(T start, TargetClass<T> targets, SearchContext context) {
+    if (targets.getComponentIndex() != this) {
+      throw new IllegalArgumentException("Target class belongs to a different component index");
+    }
+    Set<T> out = new HashSet<>();
+    int id = index.getId(start);
+    if (id < 0) {
+      return out;
+    }
+    SearchListener listener = this.listener.get();
+    long started = listener == null ? 0 : System.nanoTime();
+    if (!targets.canReachTarget(components[id])) {
+      if (listener != null) {
+        Network.report(listener, QueryType.FIND_CLOSEST, started, Termination.EXHAUSTED);
+      }
+      return out;
+    }
+    int[] found = network.findClosest(id, targets::isTarget, node -> targets.canReachTarget(components[node]), context);
+    if (listener != null) {
+      Network.report(listener, QueryType.FIND_CLOSEST, started,
+              Network.stoppedBy(context, Termination.MATCH_FOUND), context);
+    }
+    for (int node : found) {
+      out.add(index.getNode(node));
+    }
+    return out;
+  }
+
+}
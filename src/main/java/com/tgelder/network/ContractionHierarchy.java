@@ -0,0 +1,559 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A contraction hierarchy built from a network, for answering many point to point queries against a network that
+ * rarely changes. The hierarchy is a snapshot: it does not see edges or costs changed after it was built.
+ *
+ * <p>Nodes are contracted in rounds. Each round contracts an independent set of the nodes with locally minimal
+ * priority, with the witness searches for the whole round run in parallel. Queries search upwards from both ends
+ * and are safe to run concurrently.
+ */
+public class ContractionHierarchy<T> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int PRIORITY_SETTLE_LIMIT = 50;
+  private static final int CONTRACTION_SETTLE_LIMIT = 1000;
+
+  private final NodeIndex<T> index;
+  private final int[] rank;
+
+  private final int[] upOffsets;
+  private final int[] upTargets;
+  private final double[] upCosts;
+  private final int[] upMiddles;
+
+  private final int[] downOffsets;
+  private final int[] downSources;
+  private final double[] downCosts;
+  private final int[] downMiddles;
+
+  private transient ThreadLocal<Query> queries;
+
+  private ContractionHierarchy(NodeIndex<T> index, int[] rank, List<List<Arc>> up, List<List<Arc>> down) {
+    this.index = index;
+    this.rank = rank;
+    int size = index.size();
+
+    upOffsets = new int[size + 1];
+    downOffsets = new int[size + 1];
+    for (int node = 0; node < size; node++) {
+      upOffsets[node + 1] = upOffsets[node] + up.get(node).size();
+      downOffsets[node + 1] = downOffsets[node] + down.get(node).size();
+    }
+
+    upTargets = new int[upOffsets[size]];
+    upCosts = new double[upOffsets[size]];
+    upMiddles = new int[upOffsets[size]];
+    downSources = new int[downOffsets[size]];
+    downCosts = new double[downOffsets[size]];
+    downMiddles = new int[downOffsets[size]];
+
+    for (int node = 0; node < size; node++) {
+      int i = upOffsets[node];
+      for (Arc arc : up.get(node)) {
+        upTargets[i] = arc.node;
+        upCosts[i] = arc.cost;
+        upMiddles[i] = arc.middle;
+        i++;
+      }
+      i = downOffsets[node];
+      for (Arc arc : down.get(node)) {
+        downSources[i] = arc.node;
+        downCosts[i] = arc.cost;
+        downMiddles[i] = arc.middle;
+        i++;
+      }
+    }
+
+    queries = ThreadLocal.withInitial(Query::new);
+  }
+
+  public static <T> ContractionHierarchy<T> build(Network<T> network) {
+    return new Builder<>(network.getNodeIndex(), network.getRouting()).build();
+  }
+
+  public NodeIndex<T> getIndex() {
+    return index;
+  }
+
+  public int getRank(T node) {
+    int id = index.getId(node);
+    if (id < 0) {
+      throw new IllegalArgumentException("Node " + node + " is not in the hierarchy");
+    }
+    return rank[id];
+  }
+
+  public int getShortcutCount() {
+    int shortcuts = 0;
+    for (int middle : upMiddles) {
+      if (middle >= 0) {
+        shortcuts++;
+      }
+    }
+    for (int middle : downMiddles) {
+      if (middle >= 0) {
+        shortcuts++;
+      }
+    }
+    return shortcuts;
+  }
+
+  public OptionalDouble distance(T start, T goal) {
+    int from = index.getId(start);
+    int to = index.getId(goal);
+    if (from < 0 || to < 0) {
+      return start.equals(goal) ? OptionalDouble.of(0) : OptionalDouble.empty();
+    }
+    Query query = getQuery();
+    int meeting = query.run(from, to);
+    return meeting < 0 ? OptionalDouble.empty() : OptionalDouble.of(query.cost);
+  }
+
+  public Optional<Path<T>> findPath(T start, T goal) {
+    int from = index.getId(start);
+    int to = index.getId(goal);
+    if (from < 0 || to < 0) {
+      return start.equals(goal) ? Optional.of(new Path<>(start, ImmutableList.of(), 0)) : Optional.empty();
+    }
+    Query query = getQuery();
+    int meeting = query.run(from, to);
+    if (meeting < 0) {
+      return Optional.empty();
+    }
+
+    Deque<Integer> upArcs = new ArrayDeque<>();
+    for (int node = meeting; node != from; node = query.forwardParent[node]) {
+      upArcs.addFirst(query.forwardArc[node]);
+    }
+    ImmutableList.Builder<Edge<T>> edges = ImmutableList.builder();
+    int node = from;
+    for (int arc : upArcs) {
+      unpack(node, upTargets[arc], upCosts[arc], upMiddles[arc], edges);
+      node = upTargets[arc];
+    }
+    for (node = meeting; node != to; node = query.backwardParent[node]) {
+      int arc = query.backwardArc[node];
+      unpack(node, query.backwardParent[node], downCosts[arc], downMiddles[arc], edges);
+    }
+    return Optional.of(new Path<>(start, edges.build(), query.cost));
+  }
+
+  private void unpack(int from, int to, double cost, int middle, ImmutableList.Builder<Edge<T>> edges) {
+    if (middle < 0) {
+      edges.add(new Edge<>(index.getNode(from), index.getNode(to), cost));
+      return;
+    }
+    int first = -1;
+    for (int i = downOffsets[middle]; i < downOffsets[middle + 1]; i++) {
+      if (downSources[i] == from && (first < 0 || downCosts[i] < downCosts[first])) {
+        first = i;
+      }
+    }
+    int second = -1;
+    for (int i = upOffsets[middle]; i < upOffsets[middle + 1]; i++) {
+      if (upTargets[i] == to && (second < 0 || upCosts[i] < upCosts[second])) {
+        second = i;
+      }
+    }
+    unpack(from, middle, downCosts[first], downMiddles[first], edges);
+    unpack(middle, to, upCosts[second], upMiddles[second], edges);
+  }
+
+  private Query getQuery() {
+    return queries.get();
+  }
+
+  private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+    stream.defaultReadObject();
+    queries = ThreadLocal.withInitial(Query::new);
+  }
+
+  public void writeTo(OutputStream stream) throws IOException {
+    ObjectOutputStream objectStream = new ObjectOutputStream(stream);
+    objectStream.writeObject(this);
+    objectStream.flush();
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> ContractionHierarchy<T> readFrom(InputStream stream) throws IOException {
+    try {
+      return (ContractionHierarchy<T>) new ObjectInputStream(stream).readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private class Query {
+
+    private final int[] forwardStamps = new int[rank.length];
+    private final double[] forwardCosts = new double[rank.length];
+    private final int[] forwardParent = new int[rank.length];
+    private final int[] forwardArc = new int[rank.length];
+    private final IntMinHeap forwardOpen = new IntMinHeap(rank.length);
+
+    private final int[] backwardStamps = new int[rank.length];
+    private final double[] backwardCosts = new double[rank.length];
+    private final int[] backwardParent = new int[rank.length];
+    private final int[] backwardArc = new int[rank.length];
+    private final IntMinHeap backwardOpen = new IntMinHeap(rank.length);
+
+    private int stamp = 0;
+    private double cost;
+
+    private int run(int from, int to) {
+      if (++stamp == Integer.MAX_VALUE) {
+        Arrays.fill(forwardStamps, 0);
+        Arrays.fill(backwardStamps, 0);
+        stamp = 1;
+      }
+      forwardOpen.clear();
+      backwardOpen.clear();
+
+      forwardStamps[from] = stamp;
+      forwardCosts[from] = 0;
+      forwardOpen.offer(from, 0);
+      backwardStamps[to] = stamp;
+      backwardCosts[to] = 0;
+      backwardOpen.offer(to, 0);
+
+      int meeting = -1;
+      cost = Double.POSITIVE_INFINITY;
+
+      while (true) {
+        double forwardMin = forwardOpen.isEmpty() ? Double.POSITIVE_INFINITY : forwardOpen.peekKey();
+        double backwardMin = backwardOpen.isEmpty() ? Double.POSITIVE_INFINITY : backwardOpen.peekKey();
+        if (Math.min(forwardMin, backwardMin) >= cost) {
+          break;
+        }
+
+        if (forwardMin <= backwardMin) {
+          int node = forwardOpen.poll();
+          double nodeCost = forwardCosts[node];
+          if (backwardStamps[node] == stamp && nodeCost + backwardCosts[node] < cost) {
+            cost = nodeCost + backwardCosts[node];
+            meeting = node;
+          }
+          for (int i = upOffsets[node]; i < upOffsets[node + 1]; i++) {
+            int target = upTargets[i];
+            double targetCost = nodeCost + upCosts[i];
+            if (forwardStamps[target] != stamp || targetCost < forwardCosts[target]) {
+              forwardStamps[target] = stamp;
+              forwardCosts[target] = targetCost;
+              forwardParent[target] = node;
+              forwardArc[target] = i;
+              forwardOpen.offer(target, targetCost);
+            }
+          }
+        } else {
+          int node = backwardOpen.poll();
+          double nodeCost = backwardCosts[node];
+          if (forwardStamps[node] == stamp && nodeCost + forwardCosts[node] < cost) {
+            cost = nodeCost + forwardCosts[node];
+            meeting = node;
+          }
+          for (int i = downOffsets[node]; i < downOffsets[node + 1]; i++) {
+            int source = downSources[i];
+            double sourceCost = nodeCost + downCosts[i];
+            if (backwardStamps[source] != stamp || sourceCost < backwardCosts[source]) {
+              backwardStamps[source] = stamp;
+              backwardCosts[source] = sourceCost;
+              backwardParent[source] = node;
+              backwardArc[source] = i;
+              backwardOpen.offer(source, sourceCost);
+            }
+          }
+        }
+      }
+
+      return meeting;
+    }
+  }
+
+  private static class Arc {
+    private final int node;
+    private double cost;
+    private final int middle;
+
+    private Arc(int node, double cost, int middle) {
+      this.node = node;
+      this.cost = cost;
+      this.middle = middle;
+    }
+  }
+
+  private static class Shortcut {
+    private final int from;
+    private final int to;
+    private final double cost;
+    private final int middle;
+
+    private Shortcut(int from, int to, double cost, int middle) {
+      this.from = from;
+      this.to = to;
+      this.cost = cost;
+      this.middle = middle;
+    }
+  }
+
+  private static class Builder<T> {
+
+    private final NodeIndex<T> index;
+    private final int size;
+
+    private final List<List<Arc>> out;
+    private final List<List<Arc>> in;
+    private final List<List<Arc>> up;
+    private final List<List<Arc>> down;
+
+    private final boolean[] contracted;
+    private final boolean[] selected;
+    private final int[] contractedNeighbours;
+    private final int[] rank;
+    private final double[] priority;
+
+    private final ThreadLocal<WitnessSearch> witnessSearches;
+
+    private Builder(NodeIndex<T> index, IntNetwork network) {
+      this.index = index;
+      this.size = network.size();
+      out = new ArrayList<>(size);
+      in = new ArrayList<>(size);
+      up = new ArrayList<>(size);
+      down = new ArrayList<>(size);
+      for (int node = 0; node < size; node++) {
+        out.add(new ArrayList<>());
+        in.add(new ArrayList<>());
+        up.add(null);
+        down.add(null);
+      }
+      for (int node = 0; node < size; node++) {
+        int from = node;
+        network.forEachOut(node, (to, cost) -> {
+          if (to != from) {
+            addArc(from, to, cost, -1);
+          }
+        });
+      }
+      contracted = new boolean[size];
+      selected = new boolean[size];
+      contractedNeighbours = new int[size];
+      rank = new int[size];
+      priority = new double[size];
+      witnessSearches = ThreadLocal.withInitial(() -> new WitnessSearch(size));
+    }
+
+    private ContractionHierarchy<T> build() {
+      IntStream.range(0, size).parallel().forEach(node -> priority[node] = computePriority(node));
+
+      int[] remaining = IntStream.range(0, size).toArray();
+      int nextRank = 0;
+
+      while (remaining.length > 0) {
+        int[] independent = Arrays.stream(remaining).parallel().filter(this::isLocalMinimum).toArray();
+        for (int node : independent) {
+          selected[node] = true;
+        }
+
+        List<List<Shortcut>> shortcuts = Arrays.stream(independent).parallel()
+                .mapToObj(node -> findShortcuts(node, CONTRACTION_SETTLE_LIMIT))
+                .collect(Collectors.toList());
+
+        Set<Integer> touched = new HashSet<>();
+        for (int i = 0; i < independent.length; i++) {
+          int node = independent[i];
+          contract(node, shortcuts.get(i), touched);
+          rank[node] = nextRank++;
+        }
+        for (int node : independent) {
+          selected[node] = false;
+        }
+
+        remaining = Arrays.stream(remaining).filter(node -> !contracted[node]).toArray();
+        touched.stream().mapToInt(Integer::intValue).filter(node -> !contracted[node]).parallel()
+                .forEach(node -> priority[node] = computePriority(node));
+      }
+
+      return new ContractionHierarchy<>(index, rank, up, down);
+    }
+
+    private boolean isLocalMinimum(int node) {
+      for (Arc arc : out.get(node)) {
+        if (!precedes(node, arc.node)) {
+          return false;
+        }
+      }
+      for (Arc arc : in.get(node)) {
+        if (!precedes(node, arc.node)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean precedes(int node, int other) {
+      if (priority[node] != priority[other]) {
+        return priority[node] < priority[other];
+      }
+      int nodeHash = mix(node);
+      int otherHash = mix(other);
+      return nodeHash < otherHash || (nodeHash == otherHash && node < other);
+    }
+
+    private int mix(int node) {
+      int hash = node * 0x9E3779B9;
+      return hash ^ (hash >>> 16);
+    }
+
+    private double computePriority(int node) {
+      int shortcuts = findShortcuts(node, PRIORITY_SETTLE_LIMIT).size();
+      return shortcuts - out.get(node).size() - in.get(node).size() + contractedNeighbours[node];
+    }
+
+    private List<Shortcut> findShortcuts(int node, int settleLimit) {
+      List<Shortcut> shortcuts = new ArrayList<>();
+      List<Arc> outArcs = out.get(node);
+      if (outArcs.isEmpty()) {
+        return shortcuts;
+      }
+      WitnessSearch witnessSearch = witnessSearches.get();
+      for (Arc inArc : in.get(node)) {
+        double maxCost = 0;
+        for (Arc outArc : outArcs) {
+          if (outArc.node != inArc.node) {
+            maxCost = Math.max(maxCost, inArc.cost + outArc.cost);
+          }
+        }
+        witnessSearch.run(inArc.node, node, outArcs, maxCost, settleLimit);
+        for (Arc outArc : outArcs) {
+          if (outArc.node != inArc.node) {
+            double cost = inArc.cost + outArc.cost;
+            if (witnessSearch.getCost(outArc.node) > cost) {
+              shortcuts.add(new Shortcut(inArc.node, outArc.node, cost, node));
+            }
+          }
+        }
+      }
+      return shortcuts;
+    }
+
+    private void contract(int node, List<Shortcut> shortcuts, Set<Integer> touched) {
+      contracted[node] = true;
+      up.set(node, out.get(node));
+      down.set(node, in.get(node));
+      for (Arc arc : out.get(node)) {
+        removeArc(in.get(arc.node), node);
+        contractedNeighbours[arc.node]++;
+        touched.add(arc.node);
+      }
+      for (Arc arc : in.get(node)) {
+        removeArc(out.get(arc.node), node);
+        contractedNeighbours[arc.node]++;
+        touched.add(arc.node);
+      }
+      for (Shortcut shortcut : shortcuts) {
+        addArc(shortcut.from, shortcut.to, shortcut.cost, shortcut.middle);
+      }
+      out.set(node, Collections.emptyList());
+      in.set(node, Collections.emptyList());
+    }
+
+    private void addArc(int from, int to, double cost, int middle) {
+      List<Arc> outArcs = out.get(from);
+      for (int i = 0; i < outArcs.size(); i++) {
+        if (outArcs.get(i).node == to) {
+          if (cost < outArcs.get(i).cost) {
+            outArcs.set(i, new Arc(to, cost, middle));
+            List<Arc> inArcs = in.get(to);
+            for (int j = 0; j < inArcs.size(); j++) {
+              if (inArcs.get(j).node == from) {
+                inArcs.set(j, new Arc(from, cost, middle));
+              }
+            }
+          }
+          return;
+        }
+      }
+      outArcs.add(new Arc(to, cost, middle));
+      in.get(to).add(new Arc(from, cost, middle));
+    }
+
+    private void removeArc(List<Arc> arcs, int node) {
+      arcs.removeIf(arc -> arc.node == node);
+    }
+
+    private class WitnessSearch {
+
+      private final int[] stamps;
+      private final int[] targetStamps;
+      private final double[] costs;
+      private final IntMinHeap open;
+      private int stamp = 0;
+
+      private WitnessSearch(int size) {
+        stamps = new int[size];
+        targetStamps = new int[size];
+        costs = new double[size];
+        open = new IntMinHeap(size);
+      }
+
+      private void run(int start, int excluded, List<Arc> targets, double maxCost, int settleLimit) {
+        if (++stamp == Integer.MAX_VALUE) {
+          Arrays.fill(stamps, 0);
+          Arrays.fill(targetStamps, 0);
+          stamp = 1;
+        }
+        open.clear();
+        stamps[start] = stamp;
+        costs[start] = 0;
+        open.offer(start, 0);
+
+        int unsettledTargets = 0;
+        for (Arc arc : targets) {
+          if (arc.node != start && targetStamps[arc.node] != stamp) {
+            targetStamps[arc.node] = stamp;
+            unsettledTargets++;
+          }
+        }
+
+        int settled = 0;
+        while (!open.isEmpty() && settled < settleLimit && unsettledTargets > 0) {
+          if (open.peekKey() > maxCost) {
+            break;
+          }
+          int node = open.poll();
+          settled++;
+          if (targetStamps[node] == stamp) {
+            unsettledTargets--;
+          }
+          double nodeCost = costs[node];
+          for (Arc arc : out.get(node)) {
+            int target = arc.node;
+            if (target == excluded || contracted[target] || selected[target]) {
+              continue;
+            }
+            double cost = nodeCost + arc.cost;
+            if (stamps[target] != stamp || cost < costs[target]) {
+              stamps[target] = stamp;
+              costs[target] = cost;
+              open.offer(target, cost);
+            }
+          }
+        }
+      }
+
+      private double getCost(int node) {
+        return stamps[node] == stamp ? costs[node] : Double.POSITIVE_INFINITY;
+      }
+    }
+  }
+
+}
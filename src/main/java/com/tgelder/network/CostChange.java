@@ -0,0 +1,15 @@
+package com.tgelder.network;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+class CostChange {
+
+  private final int from;
+  private final int to;
+  private final double oldCost;
+  private final double newCost;
+
+}
@@ -0,0 +1,172 @@
+package com.tgelder.network;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A parallel single source search for queries that settle a large part of a network. Nodes are grouped into buckets
+ * of width delta by cost. All nodes in the lowest bucket are relaxed in parallel along their light edges, those
+ * costing at most delta, until the bucket stops changing; their heavy edges are then relaxed once. A bucket width
+ * around the typical edge cost works well: wider buckets give more parallelism but more wasted relaxations.
+ */
+public class DeltaStepping {
+
+  private static final int CHUNK = 256;
+  private static final long INFINITY = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+
+  @Getter
+  private final double delta;
+  private final ForkJoinPool pool;
+
+  public DeltaStepping(double delta) {
+    this(delta, ForkJoinPool.commonPool());
+  }
+
+  public DeltaStepping(double delta, ForkJoinPool pool) {
+    if (!(delta > 0) || delta == Double.POSITIVE_INFINITY) {
+      throw new IllegalArgumentException("Delta must be positive and finite");
+    }
+    this.delta = delta;
+    this.pool = pool;
+  }
+
+  /**
+   * Returns the cost of the cheapest path from start to every node, or infinity where there is none.
+   */
+  public double[] getCostsFrom(AbstractIntNetwork network, int start) {
+    AtomicLongArray costs = new Query(network, Double.POSITIVE_INFINITY).run(start);
+    double[] out = new double[network.size()];
+    for (int node = 0; node < out.length; node++) {
+      out[node] = Double.longBitsToDouble(costs.get(node));
+    }
+    return out;
+  }
+
+  /**
+   * Returns the nodes reachable from start at a cost below maxCost, the same nodes as
+   * {@link AbstractIntNetwork#getNodes(int, int)} but in no particular order.
+   */
+  public int[] getNodes(AbstractIntNetwork network, int start, double maxCost) {
+    if (!(maxCost > 0)) {
+      return new int[0];
+    }
+    AtomicLongArray costs = new Query(network, maxCost).run(start);
+    return IntStream.range(0, network.size())
+            .filter(node -> costs.get(node) != INFINITY)
+            .toArray();
+  }
+
+  private class Query {
+
+    private final AbstractIntNetwork network;
+    private final double maxCost;
+    private final AtomicLongArray costs;
+    private final TreeMap<Long, IntList> buckets = new TreeMap<>();
+    private final int[] frontierStamps;
+    private final int[] settledStamps;
+    private int stamp = 0;
+
+    private Query(AbstractIntNetwork network, double maxCost) {
+      this.network = network;
+      this.maxCost = maxCost;
+      costs = new AtomicLongArray(network.size());
+      for (int node = 0; node < network.size(); node++) {
+        costs.set(node, INFINITY);
+      }
+      frontierStamps = new int[network.size()];
+      settledStamps = new int[network.size()];
+    }
+
+    private AtomicLongArray run(int start) {
+      costs.set(start, Double.doubleToRawLongBits(0.0));
+      add(start);
+      return pool.submit(() -> {
+        while (!buckets.isEmpty()) {
+          long bucket = buckets.firstKey();
+          IntList settled = new IntList();
+          int settledStamp = ++stamp;
+          while (buckets.containsKey(bucket)) {
+            int frontierStamp = ++stamp;
+            IntList frontier = new IntList();
+            IntList entries = buckets.remove(bucket);
+            for (int i = 0; i < entries.size(); i++) {
+              int node = entries.get(i);
+              if (bucketOf(node) == bucket && frontierStamps[node] != frontierStamp) {
+                frontierStamps[node] = frontierStamp;
+                frontier.add(node);
+                if (settledStamps[node] != settledStamp) {
+                  settledStamps[node] = settledStamp;
+                  settled.add(node);
+                }
+              }
+            }
+            relax(frontier, true);
+          }
+          relax(settled, false);
+        }
+        return costs;
+      }).join();
+    }
+
+    private void relax(IntList nodes, boolean light) {
+      if (nodes.size() <= CHUNK) {
+        relax(nodes, 0, nodes.size(), light).forEach(this::add);
+        return;
+      }
+      List<IntList> improved = IntStream.range(0, (nodes.size() + CHUNK - 1) / CHUNK).parallel()
+              .mapToObj(chunk -> relax(nodes, chunk * CHUNK, Math.min(nodes.size(), (chunk + 1) * CHUNK), light))
+              .collect(Collectors.toList());
+      improved.forEach(list -> list.forEach(this::add));
+    }
+
+    private IntList relax(IntList nodes, int from, int to, boolean light) {
+      IntList improved = new IntList();
+      for (int i = from; i < to; i++) {
+        int node = nodes.get(i);
+        double nodeCost = getCost(node);
+        network.forEachOut(node, (target, cost) -> {
+          if ((cost <= delta) == light) {
+            double targetCost = nodeCost + cost;
+            if (targetCost < maxCost && lower(target, targetCost)) {
+              improved.add(target);
+            }
+          }
+        });
+      }
+      return improved;
+    }
+
+    private boolean lower(int node, double cost) {
+      long bits = Double.doubleToRawLongBits(cost + 0.0);
+      while (true) {
+        long current = costs.get(node);
+        if (bits >= current) {
+          return false;
+        }
+        if (costs.compareAndSet(node, current, bits)) {
+          return true;
+        }
+      }
+    }
+
+    private double getCost(int node) {
+      return Double.longBitsToDouble(costs.get(node));
+    }
+
+    private long bucketOf(int node) {
+      return (long) (getCost(node) / delta);
+    }
+
+    private void add(int node) {
+      buckets.computeIfAbsent(bucketOf(node), bucket -> new IntList()).add(node);
+    }
+
+  }
+
+}
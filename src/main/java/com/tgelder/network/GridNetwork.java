@@ -0,0 +1,124 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import lombok.Getter;
+
+import java.util.stream.IntStream;
+
+/**
+ * The network {@link Network#createGridNetwork} would build, with neighbours and costs computed from the offsets
+ * whenever they are needed instead of being stored as edges. Node (x, y) is numbered (width * y) + x.
+ *
+ * <p>Cells may carry a cost multiplier. An edge costs its length times the mean multiplier of the two cells it
+ * joins, and a cell with an infinite multiplier is blocked, so no edges enter or leave it.
+ */
+public class GridNetwork extends AbstractIntNetwork {
+
+  @Getter
+  private final int width;
+  @Getter
+  private final int height;
+  private final int[] neighbourDXs;
+  private final int[] neighbourDYs;
+  private final float[] costMultipliers;
+
+  private final double[] neighbourCosts;
+
+  public GridNetwork(int width, int height, int[] neighbourDXs, int[] neighbourDYs) {
+    this(width, height, neighbourDXs, neighbourDYs, null);
+  }
+
+  public GridNetwork(int width, int height, int[] neighbourDXs, int[] neighbourDYs, float[] costMultipliers) {
+    if (neighbourDXs.length != neighbourDYs.length) {
+      throw new IllegalArgumentException("Neighbour offset arrays must have the same length");
+    }
+    if (costMultipliers != null && costMultipliers.length != width * height) {
+      throw new IllegalArgumentException("Expected " + (width * height) + " cost multipliers but got "
+              + costMultipliers.length);
+    }
+    if (costMultipliers != null) {
+      for (float multiplier : costMultipliers) {
+        if (!(multiplier >= 0)) {
+          throw new IllegalArgumentException("Cost multipliers must not be negative or NaN");
+        }
+      }
+    }
+    this.width = width;
+    this.height = height;
+    this.neighbourDXs = neighbourDXs.clone();
+    this.neighbourDYs = neighbourDYs.clone();
+    this.costMultipliers = costMultipliers == null ? null : costMultipliers.clone();
+
+    neighbourCosts = new double[neighbourDXs.length];
+    for (int n = 0; n < neighbourDXs.length; n++) {
+      neighbourCosts[n] = Math.sqrt(neighbourDXs[n] * neighbourDXs[n] + neighbourDYs[n] * neighbourDYs[n]);
+    }
+  }
+
+  public int getIndex(int x, int y) {
+    return (width * y) + x;
+  }
+
+  public int getX(int node) {
+    return node % width;
+  }
+
+  public int getY(int node) {
+    return node / width;
+  }
+
+  public boolean isBlocked(int node) {
+    return costMultipliers != null && costMultipliers[node] == Float.POSITIVE_INFINITY;
+  }
+
+  @Override
+  public int size() {
+    return width * height;
+  }
+
+  @Override
+  protected boolean hasDiscreteCosts() {
+    return costMultipliers == null;
+  }
+
+  @Override
+  public void forEachOut(int node, IntDoubleConsumer consumer) {
+    forEachNeighbour(node, 1, consumer);
+  }
+
+  @Override
+  public void forEachIn(int node, IntDoubleConsumer consumer) {
+    forEachNeighbour(node, -1, consumer);
+  }
+
+  private void forEachNeighbour(int node, int direction, IntDoubleConsumer consumer) {
+    int x = node % width;
+    int y = node / width;
+    for (int n = 0; n < neighbourDXs.length; n++) {
+      int nx = x + direction * neighbourDXs[n];
+      int ny = y + direction * neighbourDYs[n];
+      if (nx >= 0 && ny >= 0 && nx < width && ny < height) {
+        int neighbour = (width * ny) + nx;
+        if (costMultipliers == null) {
+          consumer.accept(neighbour, neighbourCosts[n]);
+        } else {
+          double cost = neighbourCosts[n] * (costMultipliers[node] + costMultipliers[neighbour]) / 2;
+          if (cost != Double.POSITIVE_INFINITY) {
+            consumer.accept(neighbour, cost);
+          }
+        }
+      }
+    }
+  }
+
+  public Network<Integer> toNetwork() {
+    ImmutableSet<Integer> nodes = IntStream.range(0, size()).boxed().collect(ImmutableSet.toImmutableSet());
+    ImmutableSet.Builder<Edge<Integer>> edgeBuilder = ImmutableSet.builder();
+    for (int node = 0; node < size(); node++) {
+      int from = node;
+      forEachOut(node, (to, cost) -> edgeBuilder.add(new Edge<>(from, to, cost)));
+    }
+    return new Network<>(nodes, edgeBuilder.build());
+  }
+
+}
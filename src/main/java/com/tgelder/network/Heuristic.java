@@ -0,0 +1,62 @@
+package com.tgelder.network;
+
+/**
+ * An estimate of the cost from one node to another, used to direct {@link Network#findPath}. Estimates must never
+ * exceed the true cost and must be consistent: estimate(a, c) <= cost(a, b) + estimate(b, c) for every edge (a, b).
+ */
+@FunctionalInterface
+public interface Heuristic<T> {
+
+  double estimate(T from, T to);
+
+  static <T> Heuristic<T> none() {
+    return (from, to) -> 0;
+  }
+
+  static Heuristic<Integer> euclidean(int width) {
+    return (from, to) -> {
+      int dx = from % width - to % width;
+      int dy = from / width - to / width;
+      return Math.sqrt(dx * dx + dy * dy);
+    };
+  }
+
+  static Heuristic<Integer> manhattan(int width) {
+    return (from, to) -> Math.abs(from % width - to % width) + Math.abs(from / width - to / width);
+  }
+
+  static Heuristic<Integer> octile(int width) {
+    return (from, to) -> {
+      int dx = Math.abs(from % width - to % width);
+      int dy = Math.abs(from / width - to / width);
+      return Math.max(dx, dy) + (Math.sqrt(2) - 1) * Math.min(dx, dy);
+    };
+  }
+
+  /**
+   * Returns the tightest of the built in heuristics that is valid for a network made by
+   * {@link Network#createGridNetwork} with these neighbour offsets.
+   */
+  static Heuristic<Integer> forGrid(int width, int[] neighbourDXs, int[] neighbourDYs) {
+    boolean axisAligned = true;
+    boolean axisAlignedOrDiagonal = true;
+    for (int n = 0; n < neighbourDXs.length; n++) {
+      int dx = Math.abs(neighbourDXs[n]);
+      int dy = Math.abs(neighbourDYs[n]);
+      if (dx != 0 && dy != 0) {
+        axisAligned = false;
+        if (dx != dy) {
+          axisAlignedOrDiagonal = false;
+        }
+      }
+    }
+    if (axisAligned) {
+      return manhattan(width);
+    } else if (axisAlignedOrDiagonal) {
+      return octile(width);
+    } else {
+      return euclidean(width);
+    }
+  }
+
+}
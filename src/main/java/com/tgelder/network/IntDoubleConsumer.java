@@ -0,0 +1,8 @@
+package com.tgelder.network;
+
+@FunctionalInterface
+public interface IntDoubleConsumer {
+
+  void accept(int node, double cost);
+
+}
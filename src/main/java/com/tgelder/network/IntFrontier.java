@@ -0,0 +1,28 @@
+package com.tgelder.network;
+
+/**
+ * The open set of a search: int nodes ordered by a double key.
+ */
+interface IntFrontier {
+
+  boolean isEmpty();
+
+  /**
+   * The number of entries, which for frontiers that keep stale duplicates includes those.
+   */
+  int size();
+
+  /**
+   * Adds node with the given key, or lowers its key if it is already present with a higher one.
+   */
+  void offer(int node, double key);
+
+  int peek();
+
+  double peekKey();
+
+  int poll();
+
+  void clear();
+
+}
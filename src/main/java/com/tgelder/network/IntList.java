@@ -0,0 +1,57 @@
+package com.tgelder.network;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A growable list of ints, also used as a stack.
+ */
+class IntList {
+
+  private int[] values = new int[8];
+  private int size = 0;
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  int get(int index) {
+    return values[index];
+  }
+
+  void ensureCapacity(int capacity) {
+    if (capacity > values.length) {
+      values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+    }
+  }
+
+  void add(int value) {
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size * 2);
+    }
+    values[size++] = value;
+  }
+
+  int pop() {
+    return values[--size];
+  }
+
+  void clear() {
+    size = 0;
+  }
+
+  void forEach(IntConsumer consumer) {
+    for (int i = 0; i < size; i++) {
+      consumer.accept(values[i]);
+    }
+  }
+
+  int[] toArray() {
+    return Arrays.copyOf(values, size);
+  }
+
+}
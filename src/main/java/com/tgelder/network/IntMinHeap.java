@@ -0,0 +1,117 @@
+package com.tgelder.network;
+
+import java.util.Arrays;
+
+class IntMinHeap implements IntFrontier {
+
+  private int[] heap;
+  private int[] position;
+  private double[] keys;
+  private int size = 0;
+
+  IntMinHeap(int capacity) {
+    heap = new int[capacity];
+    position = new int[capacity];
+    keys = new double[capacity];
+    Arrays.fill(position, -1);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  boolean contains(int node) {
+    return position[node] >= 0;
+  }
+
+  @Override
+  public double peekKey() {
+    return keys[heap[0]];
+  }
+
+  @Override
+  public int peek() {
+    return heap[0];
+  }
+
+  @Override
+  public void offer(int node, double key) {
+    int index = position[node];
+    if (index < 0) {
+      index = size++;
+      heap[index] = node;
+      position[node] = index;
+    } else if (key >= keys[node]) {
+      return;
+    }
+    keys[node] = key;
+    siftUp(index);
+  }
+
+  @Override
+  public int poll() {
+    int node = heap[0];
+    position[node] = -1;
+    size--;
+    if (size > 0) {
+      heap[0] = heap[size];
+      position[heap[0]] = 0;
+      siftDown(0);
+    }
+    return node;
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      position[heap[i]] = -1;
+    }
+    size = 0;
+  }
+
+  private void siftUp(int index) {
+    int node = heap[index];
+    double key = keys[node];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      int parentNode = heap[parent];
+      if (keys[parentNode] <= key) {
+        break;
+      }
+      heap[index] = parentNode;
+      position[parentNode] = index;
+      index = parent;
+    }
+    heap[index] = node;
+    position[node] = index;
+  }
+
+  private void siftDown(int index) {
+    int node = heap[index];
+    double key = keys[node];
+    int half = size >>> 1;
+    while (index < half) {
+      int child = (index << 1) + 1;
+      int right = child + 1;
+      if (right < size && keys[heap[right]] < keys[heap[child]]) {
+        child = right;
+      }
+      int childNode = heap[child];
+      if (key <= keys[childNode]) {
+        break;
+      }
+      heap[index] = childNode;
+      position[childNode] = index;
+      index = child;
+    }
+    heap[index] = node;
+    position[node] = index;
+  }
+
+}
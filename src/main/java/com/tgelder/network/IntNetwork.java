@@ -0,0 +1,236 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * A network over the nodes 0 to size - 1 with forward and reverse adjacency held in compressed sparse row arrays.
+ */
+public class IntNetwork extends AbstractIntNetwork {
+
+  private static final int MAX_DISCRETE_COSTS = 16;
+
+  private final int size;
+
+  @Getter(AccessLevel.PACKAGE)
+  private final int[] outOffsets;
+  @Getter(AccessLevel.PACKAGE)
+  private final int[] outTargets;
+  @Getter(AccessLevel.PACKAGE)
+  private final double[] outCosts;
+
+  @Getter(AccessLevel.PACKAGE)
+  private final int[] inOffsets;
+  @Getter(AccessLevel.PACKAGE)
+  private final int[] inSources;
+  @Getter(AccessLevel.PACKAGE)
+  private final double[] inCosts;
+
+  /**
+   * A performance hint fixed at construction, from the costs at that time. Later cost updates do not change it, which
+   * can only make the radix heap slower, never wrong, as long as costs stay non-negative and finite.
+   */
+  private final boolean discreteCosts;
+
+  public IntNetwork(int size, int[] froms, int[] tos, double[] costs) {
+    if (froms.length != tos.length || froms.length != costs.length) {
+      throw new IllegalArgumentException("Edge arrays must have the same length");
+    }
+    this.size = size;
+
+    outOffsets = new int[size + 1];
+    outTargets = new int[froms.length];
+    outCosts = new double[froms.length];
+    fill(froms, tos, costs, outOffsets, outTargets, outCosts);
+
+    inOffsets = new int[size + 1];
+    inSources = new int[froms.length];
+    inCosts = new double[froms.length];
+    fill(tos, froms, costs, inOffsets, inSources, inCosts);
+
+    discreteCosts = isDiscrete(costs);
+  }
+
+  private static boolean isDiscrete(double[] costs) {
+    boolean integral = true;
+    Set<Double> distinct = new HashSet<>();
+    for (double cost : costs) {
+      if (!(cost >= 0) || cost == Double.POSITIVE_INFINITY) {
+        return false;
+      }
+      integral &= cost == Math.rint(cost);
+      if (distinct.size() <= MAX_DISCRETE_COSTS) {
+        distinct.add(cost);
+      }
+    }
+    return integral || distinct.size() <= MAX_DISCRETE_COSTS;
+  }
+
+  private void fill(int[] keys, int[] values, double[] costs, int[] offsets, int[] targets, double[] targetCosts) {
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] < 0 || keys[i] >= size || values[i] < 0 || values[i] >= size) {
+        throw new IllegalArgumentException("Edge " + i + " references a node outside 0 to " + (size - 1));
+      }
+      offsets[keys[i] + 1]++;
+    }
+    for (int i = 0; i < size; i++) {
+      offsets[i + 1] += offsets[i];
+    }
+    int[] cursors = Arrays.copyOf(offsets, size);
+    for (int i = 0; i < keys.length; i++) {
+      int slot = cursors[keys[i]]++;
+      targets[slot] = values[i];
+      targetCosts[slot] = costs[i];
+    }
+  }
+
+  public static IntNetwork fromNetwork(Network<Integer> network) {
+    int size = Math.max(
+            network.getNodes().stream().mapToInt(Integer::intValue).max().orElse(-1),
+            network.getEdges().stream().mapToInt(e -> Math.max(e.getFrom(), e.getTo())).max().orElse(-1)) + 1;
+    return fromNetwork(network, size, Integer::intValue);
+  }
+
+  public static <T> IntNetwork fromNetwork(Network<T> network, NodeIndex<T> index) {
+    return fromNetwork(network, index.size(), node -> {
+      int id = index.getId(node);
+      if (id < 0) {
+        throw new IllegalArgumentException("Node " + node + " is not in the index");
+      }
+      return id;
+    });
+  }
+
+  private static <T> IntNetwork fromNetwork(Network<T> network,
+                                            int size,
+                                            ToIntFunction<T> id) {
+    int edgeCount = network.getEdges().size();
+    int[] froms = new int[edgeCount];
+    int[] tos = new int[edgeCount];
+    double[] costs = new double[edgeCount];
+    int i = 0;
+    for (Edge<T> edge : network.getEdges()) {
+      froms[i] = id.applyAsInt(edge.getFrom());
+      tos[i] = id.applyAsInt(edge.getTo());
+      costs[i] = edge.getCost();
+      i++;
+    }
+    return new IntNetwork(size, froms, tos, costs);
+  }
+
+  /**
+   * Returns a copy keeping only the cheapest edge between each ordered pair of nodes, which is all a search needs.
+   */
+  public IntNetwork withoutParallelEdges() {
+    int[] stamps = new int[size];
+    int[] slots = new int[size];
+    int[] froms = new int[outTargets.length];
+    int[] tos = new int[outTargets.length];
+    double[] costs = new double[outTargets.length];
+    int count = 0;
+    for (int from = 0; from < size; from++) {
+      for (int i = outOffsets[from]; i < outOffsets[from + 1]; i++) {
+        int to = outTargets[i];
+        if (stamps[to] != from + 1) {
+          stamps[to] = from + 1;
+          slots[to] = count;
+          froms[count] = from;
+          tos[count] = to;
+          costs[count] = outCosts[i];
+          count++;
+        } else {
+          costs[slots[to]] = Math.min(costs[slots[to]], outCosts[i]);
+        }
+      }
+    }
+    return new IntNetwork(size, Arrays.copyOf(froms, count), Arrays.copyOf(tos, count), Arrays.copyOf(costs, count));
+  }
+
+  public Network<Integer> toNetwork() {
+    ImmutableSet<Integer> nodes = IntStream.range(0, size).boxed().collect(ImmutableSet.toImmutableSet());
+    ImmutableSet.Builder<Edge<Integer>> edgeBuilder = ImmutableSet.builder();
+    for (int from = 0; from < size; from++) {
+      for (int i = outOffsets[from]; i < outOffsets[from + 1]; i++) {
+        edgeBuilder.add(new Edge<>(from, outTargets[i], outCosts[i]));
+      }
+    }
+    return new Network<>(nodes, edgeBuilder.build());
+  }
+
+  public <T> Network<T> toNetwork(NodeIndex<T> index) {
+    if (index.size() != size) {
+      throw new IllegalArgumentException("Index has " + index.size() + " nodes but network has " + size);
+    }
+    ImmutableSet.Builder<Edge<T>> edgeBuilder = ImmutableSet.builder();
+    for (int from = 0; from < size; from++) {
+      for (int i = outOffsets[from]; i < outOffsets[from + 1]; i++) {
+        edgeBuilder.add(new Edge<>(index.getNode(from), index.getNode(outTargets[i]), outCosts[i]));
+      }
+    }
+    return new Network<>(ImmutableSet.copyOf(index.getNodes()), edgeBuilder.build());
+  }
+
+  /**
+   * Changes the cost of one edge from from to to that currently costs oldCost. Used to keep the routing copy of a
+   * {@link Network} in step with {@link Network#updateCost}, which only allows non-negative, finite costs.
+   */
+  void updateCost(int from, int to, double oldCost, double newCost) {
+    updateCost(outOffsets, outTargets, outCosts, from, to, oldCost, newCost);
+    updateCost(inOffsets, inSources, inCosts, to, from, oldCost, newCost);
+  }
+
+  private static void updateCost(int[] offsets, int[] targets, double[] costs,
+                                 int key, int value, double oldCost, double newCost) {
+    for (int i = offsets[key]; i < offsets[key + 1]; i++) {
+      if (targets[i] == value && costs[i] == oldCost) {
+        costs[i] = newCost;
+        return;
+      }
+    }
+    throw new IllegalArgumentException("No edge from " + key + " to " + value + " costs " + oldCost);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  public int getEdgeCount() {
+    return outTargets.length;
+  }
+
+  public int getOutDegree(int node) {
+    return outOffsets[node + 1] - outOffsets[node];
+  }
+
+  public int getInDegree(int node) {
+    return inOffsets[node + 1] - inOffsets[node];
+  }
+
+  @Override
+  protected boolean hasDiscreteCosts() {
+    return discreteCosts;
+  }
+
+  @Override
+  public void forEachOut(int node, IntDoubleConsumer consumer) {
+    for (int i = outOffsets[node]; i < outOffsets[node + 1]; i++) {
+      consumer.accept(outTargets[i], outCosts[i]);
+    }
+  }
+
+  @Override
+  public void forEachIn(int node, IntDoubleConsumer consumer) {
+    for (int i = inOffsets[node]; i < inOffsets[node + 1]; i++) {
+      consumer.accept(inSources[i], inCosts[i]);
+    }
+  }
+
+}
@@ -0,0 +1,117 @@
+package com.tgelder.network;
+
+import java.util.Arrays;
+
+/**
+ * A monotone priority queue for searches whose keys never fall below the last key polled, as in Dijkstra with
+ * non-negative costs. Keys are bucketed by the highest bit in which they differ from the last key polled, using the
+ * fact that the bits of non-negative doubles sort in the same order as their values. Offering a node again adds a
+ * second entry rather than lowering the first, so callers must skip nodes they have already settled.
+ */
+class IntRadixHeap implements IntFrontier {
+
+  private static final int BUCKETS = 65;
+
+  private final int[][] nodes = new int[BUCKETS][];
+  private final long[][] keys = new long[BUCKETS][];
+  private final int[] sizes = new int[BUCKETS];
+  private int size = 0;
+  private long last = 0;
+
+  IntRadixHeap() {
+    for (int b = 0; b < BUCKETS; b++) {
+      nodes[b] = new int[4];
+      keys[b] = new long[4];
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void offer(int node, double key) {
+    long bits = Double.doubleToRawLongBits(key + 0.0);
+    if (bits < last) {
+      throw new IllegalArgumentException("Key " + key + " is below the last key polled, "
+              + Double.longBitsToDouble(last));
+    }
+    push(bucket(bits), node, bits);
+    size++;
+  }
+
+  @Override
+  public int peek() {
+    refill();
+    return nodes[0][sizes[0] - 1];
+  }
+
+  @Override
+  public double peekKey() {
+    refill();
+    return Double.longBitsToDouble(last);
+  }
+
+  @Override
+  public int poll() {
+    refill();
+    size--;
+    return nodes[0][--sizes[0]];
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(sizes, 0);
+    size = 0;
+    last = 0;
+  }
+
+  private int bucket(long bits) {
+    return 64 - Long.numberOfLeadingZeros(bits ^ last);
+  }
+
+  private void push(int bucket, int node, long bits) {
+    int index = sizes[bucket]++;
+    if (index == nodes[bucket].length) {
+      nodes[bucket] = Arrays.copyOf(nodes[bucket], index * 2);
+      keys[bucket] = Arrays.copyOf(keys[bucket], index * 2);
+    }
+    nodes[bucket][index] = node;
+    keys[bucket][index] = bits;
+  }
+
+  /**
+   * Makes sure bucket 0, which holds the entries whose key is the last key polled, is not empty, by moving the last
+   * key up to the smallest key in the first non-empty bucket and spreading that bucket over the buckets below it.
+   */
+  private void refill() {
+    if (sizes[0] > 0) {
+      return;
+    }
+    int bucket = 1;
+    while (sizes[bucket] == 0) {
+      bucket++;
+    }
+
+    int[] bucketNodes = nodes[bucket];
+    long[] bucketKeys = keys[bucket];
+    int count = sizes[bucket];
+    long min = bucketKeys[0];
+    for (int i = 1; i < count; i++) {
+      min = Math.min(min, bucketKeys[i]);
+    }
+
+    last = min;
+    sizes[bucket] = 0;
+    for (int i = 0; i < count; i++) {
+      push(bucket(bucketKeys[i]), bucketNodes[i], bucketKeys[i]);
+    }
+  }
+
+}
@@ -0,0 +1,43 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.OptionalDouble;
+
+/**
+ * The nodes around a start split into bands by cost, as returned by {@link Network#getIsochrone}. Band i holds the
+ * nodes costing at least thresholds[i - 1] and less than thresholds[i].
+ */
+@AllArgsConstructor
+@Getter
+public class Isochrone<T> {
+
+  private final T start;
+  private final ImmutableList<Double> thresholds;
+  private final ImmutableList<ImmutableSet<T>> bands;
+  private final ImmutableMap<T, Double> costs;
+
+  /**
+   * Returns the nodes costing less than thresholds[band], the union of bands 0 to band.
+   */
+  public ImmutableSet<T> getWithin(int band) {
+    ImmutableSet.Builder<T> builder = ImmutableSet.builder();
+    for (int i = 0; i <= band; i++) {
+      builder.addAll(bands.get(i));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the cost of node from start if it falls in a band and costs were asked for.
+   */
+  public OptionalDouble getCost(T node) {
+    Double cost = costs.get(node);
+    return cost == null ? OptionalDouble.empty() : OptionalDouble.of(cost);
+  }
+
+}
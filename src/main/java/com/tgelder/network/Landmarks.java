@@ -0,0 +1,142 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+/**
+ * A landmark (ALT) heuristic for {@link Network#findPath}, which needs no coordinates. It stores the cost from and
+ * to every landmark for every node and bounds the remaining cost with the triangle inequality. Like
+ * {@link ContractionHierarchy}, it is a snapshot of the costs at the time it was built.
+ */
+public class Landmarks<T> implements Heuristic<T> {
+
+  private final NodeIndex<T> index;
+  private final int[] landmarks;
+  private final double[][] costsFrom;
+  private final double[][] costsTo;
+
+  private Landmarks(NodeIndex<T> index, int[] landmarks, double[][] costsFrom, double[][] costsTo) {
+    this.index = index;
+    this.landmarks = landmarks;
+    this.costsFrom = costsFrom;
+    this.costsTo = costsTo;
+  }
+
+  /**
+   * Picks count landmarks by repeatedly taking the node farthest from the landmarks picked so far. Nodes that no
+   * landmark can reach are taken first, so that every component gets a landmark.
+   */
+  public static <T> Landmarks<T> build(Network<T> network, int count) {
+    NodeIndex<T> index = network.getNodeIndex();
+    IntNetwork intNetwork = network.getRouting();
+    int size = intNetwork.size();
+    count = Math.min(count, size);
+
+    int[] landmarks = new int[count];
+    double[][] costsFrom = new double[count][];
+    double[][] costsTo = new double[count][];
+    if (count == 0) {
+      return new Landmarks<>(index, landmarks, costsFrom, costsTo);
+    }
+
+    double[] separation = new double[size];
+    CompletableFuture<double[]> seedTo = CompletableFuture.supplyAsync(() -> intNetwork.getCostsTo(0));
+    double[] seedFrom = intNetwork.getCostsFrom(0);
+    double[] seedToCosts = seedTo.join();
+    IntStream.range(0, size).parallel().forEach(node -> separation[node] = seedFrom[node] + seedToCosts[node]);
+
+    for (int l = 0; l < count; l++) {
+      landmarks[l] = farthest(separation);
+      computeCosts(intNetwork, landmarks, costsFrom, costsTo, l);
+
+      double[] from = costsFrom[l];
+      double[] to = costsTo[l];
+      boolean first = l == 0;
+      IntStream.range(0, size).parallel()
+              .forEach(node -> separation[node] = first
+                      ? from[node] + to[node]
+                      : Math.min(separation[node], from[node] + to[node]));
+      for (int landmark = 0; landmark <= l; landmark++) {
+        separation[landmarks[landmark]] = -1;
+      }
+    }
+
+    return new Landmarks<>(index, landmarks, costsFrom, costsTo);
+  }
+
+  private static int farthest(double[] separation) {
+    return IntStream.range(0, separation.length).parallel()
+            .reduce((a, b) -> separation[b] > separation[a] || (separation[b] == separation[a] && b < a) ? b : a)
+            .getAsInt();
+  }
+
+  public static <T> Landmarks<T> build(Network<T> network, Collection<T> landmarkNodes) {
+    NodeIndex<T> index = network.getNodeIndex();
+    IntNetwork intNetwork = network.getRouting();
+
+    int[] landmarks = landmarkNodes.stream().mapToInt(node -> {
+      int id = index.getId(node);
+      if (id < 0) {
+        throw new IllegalArgumentException("Landmark " + node + " is not in the network");
+      }
+      return id;
+    }).toArray();
+    double[][] costsFrom = new double[landmarks.length][];
+    double[][] costsTo = new double[landmarks.length][];
+
+    IntStream.range(0, landmarks.length).parallel()
+            .forEach(l -> computeCosts(intNetwork, landmarks, costsFrom, costsTo, l));
+
+    return new Landmarks<>(index, landmarks, costsFrom, costsTo);
+  }
+
+  private static void computeCosts(IntNetwork network,
+                                   int[] landmarks,
+                                   double[][] costsFrom,
+                                   double[][] costsTo,
+                                   int l) {
+    CompletableFuture<double[]> to = CompletableFuture.supplyAsync(() -> network.getCostsTo(landmarks[l]));
+    costsFrom[l] = network.getCostsFrom(landmarks[l]);
+    costsTo[l] = to.join();
+  }
+
+  public ImmutableList<T> getLandmarks() {
+    ImmutableList.Builder<T> builder = ImmutableList.builder();
+    for (int landmark : landmarks) {
+      builder.add(index.getNode(landmark));
+    }
+    return builder.build();
+  }
+
+  @Override
+  public double estimate(T from, T to) {
+    int v = index.getId(from);
+    int t = index.getId(to);
+    if (v < 0 || t < 0) {
+      return 0;
+    }
+
+    double estimate = 0;
+    for (int l = 0; l < landmarks.length; l++) {
+      double[] landmarkFrom = costsFrom[l];
+      if (landmarkFrom[v] != Double.POSITIVE_INFINITY) {
+        if (landmarkFrom[t] == Double.POSITIVE_INFINITY) {
+          return Double.POSITIVE_INFINITY;
+        }
+        estimate = Math.max(estimate, landmarkFrom[t] - landmarkFrom[v]);
+      }
+      double[] landmarkTo = costsTo[l];
+      if (landmarkTo[t] != Double.POSITIVE_INFINITY) {
+        if (landmarkTo[v] == Double.POSITIVE_INFINITY) {
+          return Double.POSITIVE_INFINITY;
+        }
+        estimate = Math.max(estimate, landmarkTo[v] - landmarkTo[t]);
+      }
+    }
+    return estimate;
+  }
+
+}
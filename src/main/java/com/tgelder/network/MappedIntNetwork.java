@@ -0,0 +1,397 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * An {@link IntNetwork} stored in a file and memory mapped, so that opening it reads nothing up front and processes
+ * on one host share its pages through the page cache. The file holds a header, the costs, the forward and reverse
+ * compressed sparse row arrays and, for networks written from a {@link Network}, a node table.
+ *
+ * <p>The node table holds Integer, Long or String nodes as plain values, along with their ids in sorted order. It is
+ * read in place like the edges, through {@link #getNodeDictionary}, which finds ids by binary search. No objects
+ * are deserialised, so a snapshot cannot make the reader load classes.
+ *
+ * <p>A single mapping is limited to 2GB.
+ */
+public class MappedIntNetwork extends AbstractIntNetwork {
+
+  private static final int MAGIC = 0x4e455457;
+  private static final int VERSION = 2;
+  private static final int HEADER_BYTES = 32;
+  private static final int DISCRETE_COSTS = 1;
+
+  private static final int NO_NODES = 0;
+  private static final int INTEGER_NODES = 1;
+  private static final int LONG_NODES = 2;
+  private static final int STRING_NODES = 3;
+  private static final ImmutableList<Class<?>> NODE_TYPES =
+          ImmutableList.of(Void.class, Integer.class, Long.class, String.class);
+
+  private final MappedByteBuffer buffer;
+  private final int size;
+  private final boolean discreteCosts;
+  private final int nodeType;
+  private final NodeDictionary<?> nodeTable;
+
+  private final IntBuffer outOffsets;
+  private final IntBuffer outTargets;
+  private final DoubleBuffer outCosts;
+  private final IntBuffer inOffsets;
+  private final IntBuffer inSources;
+  private final DoubleBuffer inCosts;
+
+  private MappedIntNetwork(MappedByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+      throw new IOException("Not a network snapshot");
+    }
+    size = buffer.getInt(8);
+    int edgeCount = buffer.getInt(12);
+    discreteCosts = (buffer.getInt(16) & DISCRETE_COSTS) != 0;
+    nodeType = buffer.getInt(20);
+    long nodeTableBytes = buffer.getLong(24);
+
+    int position = HEADER_BYTES;
+    outCosts = slice(position, (long) edgeCount * 8).asDoubleBuffer();
+    position += edgeCount * 8;
+    inCosts = slice(position, (long) edgeCount * 8).asDoubleBuffer();
+    position += edgeCount * 8;
+    outOffsets = slice(position, (size + 1L) * 4).asIntBuffer();
+    position += (size + 1) * 4;
+    outTargets = slice(position, (long) edgeCount * 4).asIntBuffer();
+    position += edgeCount * 4;
+    inOffsets = slice(position, (size + 1L) * 4).asIntBuffer();
+    position += (size + 1) * 4;
+    inSources = slice(position, (long) edgeCount * 4).asIntBuffer();
+    position += edgeCount * 4;
+    if (position + nodeTableBytes != buffer.capacity()) {
+      throw new IOException("Snapshot is " + buffer.capacity() + " bytes but its header expects "
+              + (position + nodeTableBytes));
+    }
+    nodeTable = openNodeTable(position, nodeTableBytes);
+  }
+
+  private NodeDictionary<?> openNodeTable(int position, long length) throws IOException {
+    switch (nodeType) {
+      case NO_NODES:
+        return null;
+      case INTEGER_NODES:
+        checkNodeTableLength(length, size * 8L);
+        return new IntegerTable(slice(position, size * 4L).asIntBuffer(),
+                slice(position + size * 4, size * 4L).asIntBuffer());
+      case LONG_NODES:
+        checkNodeTableLength(length, size * 12L);
+        return new LongTable(slice(position, size * 8L).asLongBuffer(),
+                slice(position + size * 8, size * 4L).asIntBuffer());
+      case STRING_NODES:
+        IntBuffer offsets = slice(position, (size + 1L) * 4).asIntBuffer();
+        checkNodeTableLength(length, (size + 1L) * 4 + size * 4L + offsets.get(size));
+        return new StringTable(offsets, slice(position + (size + 1) * 4, size * 4L).asIntBuffer(),
+                slice(position + (size + 1) * 4 + size * 4, offsets.get(size)));
+      default:
+        throw new IOException("Unknown node type " + nodeType);
+    }
+  }
+
+  private static void checkNodeTableLength(long length, long expected) throws IOException {
+    if (length != expected) {
+      throw new IOException("Node table is " + length + " bytes but should be " + expected);
+    }
+  }
+
+  private ByteBuffer slice(int position, long length) throws IOException {
+    if (position + length > buffer.capacity()) {
+      throw new IOException("Snapshot is truncated");
+    }
+    ByteBuffer duplicate = buffer.duplicate();
+    duplicate.position(position);
+    duplicate.limit((int) (position + length));
+    return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  public static MappedIntNetwork open(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Snapshots over 2GB cannot be mapped in one piece");
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      return new MappedIntNetwork(buffer);
+    }
+  }
+
+  public static void write(IntNetwork network, File file) throws IOException {
+    write(network, NO_NODES, ByteBuffer.allocate(0), file);
+  }
+
+  /**
+   * Writes the network's edges together with a table of its nodes, which must all be Integers, all Longs or all
+   * Strings.
+   */
+  public static <T> void write(Network<T> network, File file) throws IOException {
+    NodeIndex<T> index = network.getNodeIndex();
+    int type = nodeTypeOf(index.getNodes());
+    write(IntNetwork.fromNetwork(network, index), type, nodeTable(index.getNodes(), type), file);
+  }
+
+  private static int nodeTypeOf(ImmutableList<?> nodes) {
+    for (int type = INTEGER_NODES; type <= STRING_NODES; type++) {
+      Class<?> nodeClass = NODE_TYPES.get(type);
+      if (nodes.stream().allMatch(nodeClass::isInstance)) {
+        return type;
+      }
+    }
+    throw new IllegalArgumentException("Only networks whose nodes are all Integers, Longs or Strings can be written "
+            + "with their nodes");
+  }
+
+  /**
+   * Lays out the node values by id, then the ids in order of value, and for Strings the UTF-8 bytes of each value.
+   */
+  @SuppressWarnings("unchecked")
+  private static ByteBuffer nodeTable(ImmutableList<?> nodes, int type) {
+    int size = nodes.size();
+    int[] sorted = IntStream.range(0, size).boxed()
+            .sorted(Comparator.comparing(id -> (Comparable<Object>) nodes.get(id)))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    ByteBuffer table;
+    if (type == INTEGER_NODES) {
+      table = ByteBuffer.allocate(size * 8).order(ByteOrder.LITTLE_ENDIAN);
+      for (Object node : nodes) {
+        table.putInt((Integer) node);
+      }
+    } else if (type == LONG_NODES) {
+      table = ByteBuffer.allocate(size * 12).order(ByteOrder.LITTLE_ENDIAN);
+      for (Object node : nodes) {
+        table.putLong((Long) node);
+      }
+    } else {
+      byte[][] values = new byte[size][];
+      int dataBytes = 0;
+      for (int id = 0; id < size; id++) {
+        values[id] = ((String) nodes.get(id)).getBytes(StandardCharsets.UTF_8);
+        dataBytes += values[id].length;
+      }
+      table = ByteBuffer.allocate((size + 1) * 4 + size * 4 + dataBytes).order(ByteOrder.LITTLE_ENDIAN);
+      int offset = 0;
+      for (byte[] value : values) {
+        table.putInt(offset);
+        offset += value.length;
+      }
+      table.putInt(offset);
+      table.position(table.position() + size * 4);
+      for (byte[] value : values) {
+        table.put(value);
+      }
+      table.position((size + 1) * 4);
+    }
+    for (int id : sorted) {
+      table.putInt(id);
+    }
+    table.clear();
+    return table;
+  }
+
+  private static void write(IntNetwork network, int nodeType, ByteBuffer nodeTable, File file) throws IOException {
+    int size = network.size();
+    int edgeCount = network.getEdgeCount();
+    long length = HEADER_BYTES + edgeCount * 24L + (size + 1L) * 8 + nodeTable.remaining();
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("Snapshots over 2GB cannot be mapped in one piece");
+    }
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(MAGIC)
+              .putInt(VERSION)
+              .putInt(size)
+              .putInt(edgeCount)
+              .putInt(network.hasDiscreteCosts() ? DISCRETE_COSTS : 0)
+              .putInt(nodeType)
+              .putLong(nodeTable.remaining());
+      buffer.asDoubleBuffer().put(network.getOutCosts());
+      buffer.position(buffer.position() + edgeCount * 8);
+      buffer.asDoubleBuffer().put(network.getInCosts());
+      buffer.position(buffer.position() + edgeCount * 8);
+      for (int[] array : new int[][]{network.getOutOffsets(), network.getOutTargets(),
+              network.getInOffsets(), network.getInSources()}) {
+        buffer.asIntBuffer().put(array);
+        buffer.position(buffer.position() + array.length * 4);
+      }
+      buffer.put(nodeTable);
+      buffer.force();
+    }
+  }
+
+  public boolean hasNodeTable() {
+    return nodeTable != null;
+  }
+
+  /**
+   * Returns a view of the node table written with the network, which reads the mapped file rather than copying it.
+   * Throws IllegalStateException if there is no table and IllegalArgumentException if its nodes are not of nodeType.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> NodeDictionary<T> getNodeDictionary(Class<T> nodeType) {
+    if (!hasNodeTable()) {
+      throw new IllegalStateException("Snapshot was written without a node table");
+    }
+    Class<?> stored = NODE_TYPES.get(this.nodeType);
+    if (nodeType != stored) {
+      throw new IllegalArgumentException("Snapshot nodes are " + stored.getSimpleName() + "s, not "
+              + nodeType.getSimpleName() + "s");
+    }
+    return (NodeDictionary<T>) nodeTable;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  public int getEdgeCount() {
+    return outTargets.limit();
+  }
+
+  @Override
+  protected boolean hasDiscreteCosts() {
+    return discreteCosts;
+  }
+
+  @Override
+  public void forEachOut(int node, IntDoubleConsumer consumer) {
+    for (int i = outOffsets.get(node), end = outOffsets.get(node + 1); i < end; i++) {
+      consumer.accept(outTargets.get(i), outCosts.get(i));
+    }
+  }
+
+  @Override
+  public void forEachIn(int node, IntDoubleConsumer consumer) {
+    for (int i = inOffsets.get(node), end = inOffsets.get(node + 1); i < end; i++) {
+      consumer.accept(inSources.get(i), inCosts.get(i));
+    }
+  }
+
+  /**
+   * A node table in the mapped file. Ids are found by binary search over the ids sorted by node.
+   */
+  private abstract class NodeTable<T> implements NodeDictionary<T> {
+
+    private final IntBuffer sorted;
+
+    private NodeTable(IntBuffer sorted) {
+      this.sorted = sorted;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public int getId(T node) {
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        int id = sorted.get(middle);
+        int comparison = compare(id, node);
+        if (comparison < 0) {
+          low = middle + 1;
+        } else if (comparison > 0) {
+          high = middle - 1;
+        } else {
+          return id;
+        }
+      }
+      return -1;
+    }
+
+    abstract int compare(int id, T node);
+  }
+
+  private class IntegerTable extends NodeTable<Integer> {
+
+    private final IntBuffer values;
+
+    private IntegerTable(IntBuffer values, IntBuffer sorted) {
+      super(sorted);
+      this.values = values;
+    }
+
+    @Override
+    public Integer getNode(int id) {
+      return values.get(id);
+    }
+
+    @Override
+    int compare(int id, Integer node) {
+      return Integer.compare(values.get(id), node);
+    }
+  }
+
+  private class LongTable extends NodeTable<Long> {
+
+    private final LongBuffer values;
+
+    private LongTable(LongBuffer values, IntBuffer sorted) {
+      super(sorted);
+      this.values = values;
+    }
+
+    @Override
+    public Long getNode(int id) {
+      return values.get(id);
+    }
+
+    @Override
+    int compare(int id, Long node) {
+      return Long.compare(values.get(id), node);
+    }
+  }
+
+  private class StringTable extends NodeTable<String> {
+
+    private final IntBuffer offsets;
+    private final ByteBuffer data;
+
+    private StringTable(IntBuffer offsets, IntBuffer sorted, ByteBuffer data) {
+      super(sorted);
+      this.offsets = offsets;
+      this.data = data;
+    }
+
+    @Override
+    public String getNode(int id) {
+      int start = offsets.get(id);
+      byte[] bytes = new byte[offsets.get(id + 1) - start];
+      ByteBuffer value = data.duplicate();
+      value.position(start);
+      value.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    int compare(int id, String node) {
+      return getNode(id).compareTo(node);
+    }
+  }
+
+}
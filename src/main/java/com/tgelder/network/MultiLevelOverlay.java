@@ -0,0 +1,590 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * A multi-level overlay of a network for point to point queries on networks too big to search directly, in the style
+ * of customizable route planning. The nodes are partitioned into cells, those cells into larger cells and so on, and
+ * each cell keeps the cheapest cost inside it from every node that an edge enters it at to every node that an edge
+ * leaves it from. Queries search from both ends, following the network's own edges only inside the lowest level
+ * cells holding start and goal and crossing everything else on these cliques.
+ *
+ * <p>The partition depends only on which nodes are joined, not on costs. After {@link Network#updateCosts},
+ * {@link #update} recomputes the cliques of just the cells holding the changed edges. Queries are safe to run
+ * concurrently, but not at the same time as updates.
+ */
+public class MultiLevelOverlay<T> {
+
+  public static final int DEFAULT_CELL_SIZE = 128;
+  public static final int DEFAULT_FANOUT = 8;
+  public static final int DEFAULT_LEVELS = 3;
+
+  private final Network<T> network;
+  private final NodeIndex<T> index;
+  private final IntNetwork graph;
+  private final int levels;
+
+  // Indexed by level then node.
+  private final int[][] cells;
+  private final int[][] entryIndex;
+  private final int[][] exitIndex;
+
+  // Indexed by level then cell.
+  private final int[][][] entries;
+  private final int[][][] exits;
+  private final Clique[][] cliques;
+
+  private MultiLevelOverlay(Network<T> network, int[][] cells, int[] cellCounts) {
+    this.network = network;
+    this.index = network.getNodeIndex();
+    this.graph = network.getRouting();
+    this.levels = cells.length;
+    this.cells = cells;
+
+    entryIndex = new int[levels][];
+    exitIndex = new int[levels][];
+    entries = new int[levels][][];
+    exits = new int[levels][][];
+    cliques = new Clique[levels][];
+    for (int level = 0; level < levels; level++) {
+      findBoundary(level, cellCounts[level]);
+      cliques[level] = new Clique[cellCounts[level]];
+    }
+  }
+
+  public static <T> MultiLevelOverlay<T> build(Network<T> network) {
+    return build(network, DEFAULT_CELL_SIZE, DEFAULT_FANOUT, DEFAULT_LEVELS);
+  }
+
+  /**
+   * Builds an overlay whose lowest cells hold at most cellSize nodes and whose higher cells each hold at most fanout
+   * cells of the level below, with at most the given number of levels. Levels that would hold a single cell are
+   * dropped. The cliques of each level are computed in parallel.
+   */
+  public static <T> MultiLevelOverlay<T> build(Network<T> network, int cellSize, int fanout, int levels) {
+    if (cellSize < 1 || fanout < 2 || levels < 1) {
+      throw new IllegalArgumentException("Cell size must be positive, fanout at least 2 and levels positive");
+    }
+    IntNetwork graph = network.getRouting();
+    List<int[]> cellList = new ArrayList<>();
+    List<Integer> countList = new ArrayList<>();
+
+    int[] nodeCells = grow(graph.size(), adjacency(graph, null, graph.size()), cellSize);
+    int count = count(nodeCells);
+    cellList.add(nodeCells);
+    countList.add(count);
+    while (cellList.size() < levels && count > 1) {
+      int[] groups = grow(count, adjacency(graph, nodeCells, count), fanout);
+      int groupCount = count(groups);
+      if (groupCount == 1) {
+        break;
+      }
+      int[] lower = nodeCells;
+      nodeCells = IntStream.range(0, graph.size()).map(node -> groups[lower[node]]).toArray();
+      count = groupCount;
+      cellList.add(nodeCells);
+      countList.add(count);
+    }
+
+    MultiLevelOverlay<T> overlay = new MultiLevelOverlay<>(network,
+            cellList.toArray(new int[0][]),
+            countList.stream().mapToInt(Integer::intValue).toArray());
+    for (int level = 0; level < overlay.levels; level++) {
+      overlay.customize(level, IntStream.range(0, countList.get(level)).toArray());
+    }
+    return overlay;
+  }
+
+  /**
+   * Returns undirected adjacency lists over units, as {offsets, targets}, where a unit is a node if unitOf is null
+   * and otherwise the unit that unitOf gives for a node. Units are joined if any edge joins their nodes.
+   */
+  private static int[][] adjacency(IntNetwork graph, int[] unitOf, int units) {
+    IntList froms = new IntList();
+    IntList tos = new IntList();
+    for (int node = 0; node < graph.size(); node++) {
+      int from = unitOf == null ? node : unitOf[node];
+      graph.forEachOut(node, (to, cost) -> {
+        int target = unitOf == null ? to : unitOf[to];
+        if (target != from) {
+          froms.add(from);
+          tos.add(target);
+        }
+      });
+    }
+
+    int[] offsets = new int[units + 1];
+    for (int i = 0; i < froms.size(); i++) {
+      offsets[froms.get(i) + 1]++;
+      offsets[tos.get(i) + 1]++;
+    }
+    for (int unit = 0; unit < units; unit++) {
+      offsets[unit + 1] += offsets[unit];
+    }
+    int[] fill = Arrays.copyOf(offsets, units);
+    int[] targets = new int[offsets[units]];
+    for (int i = 0; i < froms.size(); i++) {
+      targets[fill[froms.get(i)]++] = tos.get(i);
+      targets[fill[tos.get(i)]++] = froms.get(i);
+    }
+    return new int[][]{offsets, targets};
+  }
+
+  /**
+   * Assigns units to cells of at most capacity units by growing each cell breadth first from the lowest unassigned
+   * unit.
+   */
+  private static int[] grow(int units, int[][] adjacency, int capacity) {
+    int[] offsets = adjacency[0];
+    int[] targets = adjacency[1];
+    int[] cell = new int[units];
+    Arrays.fill(cell, -1);
+    int[] queue = new int[units];
+    int cells = 0;
+
+    for (int seed = 0; seed < units; seed++) {
+      if (cell[seed] >= 0) {
+        continue;
+      }
+      int head = 0;
+      int tail = 0;
+      cell[seed] = cells;
+      queue[tail++] = seed;
+      while (head < tail && tail < capacity) {
+        int unit = queue[head++];
+        for (int i = offsets[unit]; i < offsets[unit + 1] && tail < capacity; i++) {
+          if (cell[targets[i]] < 0) {
+            cell[targets[i]] = cells;
+            queue[tail++] = targets[i];
+          }
+        }
+      }
+      cells++;
+    }
+    return cell;
+  }
+
+  private static int count(int[] cells) {
+    return Arrays.stream(cells).max().orElse(-1) + 1;
+  }
+
+  /**
+   * Finds the entries and exits of every cell at level: the nodes with an edge into or out of the cell.
+   */
+  private void findBoundary(int level, int cellCount) {
+    int[] cell = cells[level];
+    int size = graph.size();
+    boolean[] isEntry = new boolean[size];
+    boolean[] isExit = new boolean[size];
+    for (int node = 0; node < size; node++) {
+      int from = node;
+      graph.forEachOut(node, (to, cost) -> {
+        if (cell[to] != cell[from]) {
+          isExit[from] = true;
+          isEntry[to] = true;
+        }
+      });
+    }
+    entryIndex[level] = new int[size];
+    exitIndex[level] = new int[size];
+    entries[level] = collect(isEntry, cell, cellCount, entryIndex[level]);
+    exits[level] = collect(isExit, cell, cellCount, exitIndex[level]);
+  }
+
+  private static int[][] collect(boolean[] member, int[] cell, int cellCount, int[] positions) {
+    int[] counts = new int[cellCount];
+    for (int node = 0; node < member.length; node++) {
+      positions[node] = member[node] ? counts[cell[node]]++ : -1;
+    }
+    int[][] out = new int[cellCount][];
+    for (int c = 0; c < cellCount; c++) {
+      out[c] = new int[counts[c]];
+    }
+    for (int node = 0; node < member.length; node++) {
+      if (member[node]) {
+        out[cell[node]][positions[node]] = node;
+      }
+    }
+    return out;
+  }
+
+  private void customize(int level, int[] cellIds) {
+    AbstractIntNetwork view = level == 0 ? graph : new CellView(level - 1);
+    IntStream.of(cellIds).parallel().forEach(cell -> {
+      SearchContext context = SearchContext.acquire();
+      try {
+        customize(level, cell, view, context);
+      } finally {
+        context.release();
+      }
+    });
+  }
+
+  /**
+   * Computes the clique of a cell by searching from each of its entries without leaving it, over the network's edges
+   * at the lowest level and over the cliques of the level below otherwise.
+   */
+  private void customize(int level, int cell, AbstractIntNetwork view, SearchContext context) {
+    int[] cellEntries = entries[level][cell];
+    int[] cellExits = exits[level][cell];
+    int[] membership = cells[level];
+    double[] clique = new double[cellEntries.length * cellExits.length];
+    for (int e = 0; e < cellEntries.length; e++) {
+      context.start(view, cellEntries[e], true, null);
+      context.restrict(node -> membership[node] == cell);
+      while (context.next() >= 0) {
+        // Settle the whole cell.
+      }
+      for (int x = 0; x < cellExits.length; x++) {
+        clique[e * cellExits.length + x] = context.getCost(cellExits[x]);
+      }
+    }
+    cliques[level][cell] = new Clique(cellEntries, cellExits, prune(level, cellEntries, cellExits, clique));
+  }
+
+  /**
+   * Returns a copy of the costs from each entry to each exit, row by row, without the moves that cost exactly as much
+   * as going by way of some other node that is both an entry and an exit, since searches will find that way instead.
+   * On networks with many equally cheap paths, such as grids, this leaves far fewer moves to relax.
+   */
+  private double[] prune(int level, int[] cellEntries, int[] cellExits, double[] clique) {
+    IntList viaEntries = new IntList();
+    IntList viaExits = new IntList();
+    for (int e = 0; e < cellEntries.length; e++) {
+      int exit = exitIndex[level][cellEntries[e]];
+      if (exit >= 0) {
+        viaEntries.add(e);
+        viaExits.add(exit);
+      }
+    }
+
+    int width = cellExits.length;
+    double[] pruned = clique.clone();
+    for (int e = 0; e < cellEntries.length; e++) {
+      for (int x = 0; x < width; x++) {
+        double cost = clique[e * width + x];
+        if (cost == Double.POSITIVE_INFINITY) {
+          continue;
+        }
+        for (int v = 0; v < viaEntries.size(); v++) {
+          double first = clique[e * width + viaExits.get(v)];
+          double second = clique[viaEntries.get(v) * width + x];
+          if (first > 0 && second > 0 && first + second == cost) {
+            pruned[e * width + x] = Double.POSITIVE_INFINITY;
+            break;
+          }
+        }
+      }
+    }
+    return pruned;
+  }
+
+  /**
+   * Visits the moves out of node on the overlay at level: across the clique of its cell if it is an entry, and along
+   * its edges out of the cell if it is an exit.
+   */
+  private void forEachOverlayOut(int level, int node, IntDoubleConsumer consumer) {
+    int cell = cells[level][node];
+    int entry = entryIndex[level][node];
+    if (entry >= 0) {
+      Clique clique = cliques[level][cell];
+      for (int i = clique.outOffsets[entry]; i < clique.outOffsets[entry + 1]; i++) {
+        consumer.accept(clique.outTargets[i], clique.outCosts[i]);
+      }
+    }
+    if (exitIndex[level][node] >= 0) {
+      int[] cellOf = cells[level];
+      graph.forEachOut(node, (to, cost) -> {
+        if (cellOf[to] != cell) {
+          consumer.accept(to, cost);
+        }
+      });
+    }
+  }
+
+  /**
+   * Visits the moves into node on the overlay at level, the reverse of {@link #forEachOverlayOut}.
+   */
+  private void forEachOverlayIn(int level, int node, IntDoubleConsumer consumer) {
+    int cell = cells[level][node];
+    int exit = exitIndex[level][node];
+    if (exit >= 0) {
+      Clique clique = cliques[level][cell];
+      for (int i = clique.inOffsets[exit]; i < clique.inOffsets[exit + 1]; i++) {
+        consumer.accept(clique.inSources[i], clique.inCosts[i]);
+      }
+    }
+    if (entryIndex[level][node] >= 0) {
+      int[] cellOf = cells[level];
+      graph.forEachIn(node, (from, cost) -> {
+        if (cellOf[from] != cell) {
+          consumer.accept(from, cost);
+        }
+      });
+    }
+  }
+
+  /**
+   * Updates the cliques after the costs of the given edges were changed with {@link Network#updateCosts}, returning
+   * the number of cells recomputed. A cell is recomputed if it holds both ends of a changed edge.
+   */
+  public int update(Collection<Edge<T>> changed) {
+    List<BitSet> dirty = new ArrayList<>();
+    for (int level = 0; level < levels; level++) {
+      dirty.add(new BitSet());
+    }
+    for (Edge<T> edge : changed) {
+      int from = index.getId(edge.getFrom());
+      int to = index.getId(edge.getTo());
+      if (from < 0 || to < 0) {
+        throw new IllegalArgumentException("Edge from " + edge.getFrom() + " to " + edge.getTo()
+                + " is not in the network");
+      }
+      for (int level = 0; level < levels; level++) {
+        if (cells[level][from] == cells[level][to]) {
+          dirty.get(level).set(cells[level][from]);
+        }
+      }
+    }
+
+    int recomputed = 0;
+    for (int level = 0; level < levels; level++) {
+      int[] cellIds = dirty.get(level).stream().toArray();
+      customize(level, cellIds);
+      recomputed += cellIds.length;
+    }
+    return recomputed;
+  }
+
+  public int getLevelCount() {
+    return levels;
+  }
+
+  public int getCellCount(int level) {
+    return cliques[level].length;
+  }
+
+  public int getCell(T node, int level) {
+    int id = index.getId(node);
+    if (id < 0) {
+      throw new IllegalArgumentException("Node " + node + " is not in the overlay");
+    }
+    return cells[level][id];
+  }
+
+  public OptionalDouble distance(T start, T goal) {
+    int from = index.getId(start);
+    int to = index.getId(goal);
+    if (from < 0 || to < 0) {
+      return start.equals(goal) ? OptionalDouble.of(0) : OptionalDouble.empty();
+    }
+    SearchContext forward = SearchContext.acquire();
+    try {
+      SearchContext backward = forward.getPartner();
+      int meeting = new QueryView(from, to).searchBidirectional(from, to, forward, backward);
+      if (meeting < 0) {
+        return OptionalDouble.empty();
+      }
+      return OptionalDouble.of(forward.getCost(meeting) + backward.getCost(meeting));
+    } finally {
+      forward.release();
+    }
+  }
+
+  /**
+   * As {@link #distance}, but with the path, whose clique moves are unpacked by searching the cells they cross.
+   */
+  public Optional<Path<T>> findPath(T start, T goal) {
+    int from = index.getId(start);
+    int to = index.getId(goal);
+    if (from < 0 || to < 0) {
+      return start.equals(goal) ? Optional.of(new Path<>(start, ImmutableList.of(), 0)) : Optional.empty();
+    }
+    SearchContext forward = SearchContext.acquire();
+    try {
+      SearchContext backward = forward.getPartner();
+      SearchContext cellContext = backward.getPartner();
+      QueryView view = new QueryView(from, to);
+      int meeting = view.searchBidirectional(from, to, forward, backward);
+      if (meeting < 0) {
+        return Optional.empty();
+      }
+
+      // The forward search moved out of each node on its query level, and the backward search into each.
+      LinkedList<Edge<T>> edges = new LinkedList<>();
+      for (int node = meeting; node != from; node = forward.getPrevious(node)) {
+        int previous = forward.getPrevious(node);
+        edges.addAll(0, unpack(view.getQueryLevel(previous) - 1, previous, node, cellContext));
+      }
+      for (int node = meeting; node != to; node = backward.getPrevious(node)) {
+        int next = backward.getPrevious(node);
+        edges.addAll(unpack(view.getQueryLevel(next) - 1, node, next, cellContext));
+      }
+      return Optional.of(new Path<>(start, ImmutableList.copyOf(edges),
+              forward.getCost(meeting) + backward.getCost(meeting)));
+    } finally {
+      forward.release();
+    }
+  }
+
+  /**
+   * Returns the edges of a move from one node to another on the overlay at level, which is either an edge or, if both
+   * are in the same cell, the cheapest path between them inside it.
+   */
+  private List<Edge<T>> unpack(int level, int from, int to, SearchContext context) {
+    if (level < 0 || cells[level][from] != cells[level][to]) {
+      return Collections.singletonList(network.getCheapestEdge(from, to));
+    }
+    int[] membership = cells[level];
+    int cell = membership[from];
+    context.start(graph, from, true, null);
+    context.restrict(node -> membership[node] == cell);
+    for (int node = context.next(); node >= 0 && node != to; node = context.next()) {
+      // Search until to is settled.
+    }
+    LinkedList<Edge<T>> edges = new LinkedList<>();
+    for (int node = to; node != from; node = context.getPrevious(node)) {
+      edges.addFirst(network.getCheapestEdge(context.getPrevious(node), node));
+    }
+    return edges;
+  }
+
+  /**
+   * The finite moves across a cell, listed by entry and by exit.
+   */
+  private static class Clique {
+
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final double[] outCosts;
+
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final double[] inCosts;
+
+    private Clique(int[] cellEntries, int[] cellExits, double[] costs) {
+      int width = cellExits.length;
+      outOffsets = new int[cellEntries.length + 1];
+      inOffsets = new int[width + 1];
+      for (int e = 0; e < cellEntries.length; e++) {
+        for (int x = 0; x < width; x++) {
+          if (costs[e * width + x] != Double.POSITIVE_INFINITY) {
+            outOffsets[e + 1]++;
+            inOffsets[x + 1]++;
+          }
+        }
+      }
+      for (int e = 0; e < cellEntries.length; e++) {
+        outOffsets[e + 1] += outOffsets[e];
+      }
+      for (int x = 0; x < width; x++) {
+        inOffsets[x + 1] += inOffsets[x];
+      }
+
+      int moves = outOffsets[cellEntries.length];
+      outTargets = new int[moves];
+      outCosts = new double[moves];
+      inSources = new int[moves];
+      inCosts = new double[moves];
+      int[] fill = Arrays.copyOf(inOffsets, width);
+      int i = 0;
+      for (int e = 0; e < cellEntries.length; e++) {
+        for (int x = 0; x < width; x++) {
+          double cost = costs[e * width + x];
+          if (cost != Double.POSITIVE_INFINITY) {
+            outTargets[i] = cellExits[x];
+            outCosts[i++] = cost;
+            inSources[fill[x]] = cellEntries[e];
+            inCosts[fill[x]++] = cost;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The overlay a cell at the level above is customized on: each node moves on the overlay at level, in either
+   * direction.
+   */
+  private class CellView extends AbstractIntNetwork {
+
+    private final int level;
+
+    private CellView(int level) {
+      this.level = level;
+    }
+
+    @Override
+    public int size() {
+      return graph.size();
+    }
+
+    @Override
+    public void forEachOut(int node, IntDoubleConsumer consumer) {
+      forEachOverlayOut(level, node, consumer);
+    }
+
+    @Override
+    public void forEachIn(int node, IntDoubleConsumer consumer) {
+      forEachOverlayIn(level, node, consumer);
+    }
+  }
+
+  /**
+   * The graph a query between start and goal searches. Each node moves on the highest level overlay whose cell
+   * holding it holds neither start nor goal, or on the network's own edges if there is none.
+   */
+  private class QueryView extends AbstractIntNetwork {
+
+    private final int start;
+    private final int goal;
+
+    private QueryView(int start, int goal) {
+      this.start = start;
+      this.goal = goal;
+    }
+
+    /**
+     * Returns how many levels node's cells differ from those of both start and goal, so 0 means the network's edges
+     * and level + 1 means the overlay at level.
+     */
+    private int getQueryLevel(int node) {
+      int level = 0;
+      while (level < levels
+              && cells[level][node] != cells[level][start]
+              && cells[level][node] != cells[level][goal]) {
+        level++;
+      }
+      return level;
+    }
+
+    @Override
+    public int size() {
+      return graph.size();
+    }
+
+    @Override
+    public void forEachOut(int node, IntDoubleConsumer consumer) {
+      int level = getQueryLevel(node);
+      if (level == 0) {
+        graph.forEachOut(node, consumer);
+      } else {
+        forEachOverlayOut(level - 1, node, consumer);
+      }
+    }
+
+    @Override
+    public void forEachIn(int node, IntDoubleConsumer consumer) {
+      int level = getQueryLevel(node);
+      if (level == 0) {
+        graph.forEachIn(node, consumer);
+      } else {
+        forEachOverlayIn(level - 1, node, consumer);
+      }
+    }
+  }
+
+}
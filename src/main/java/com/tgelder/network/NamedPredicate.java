@@ -0,0 +1,26 @@
+package com.tgelder.network;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.function.Predicate;
+
+/**
+ * A predicate registered with a {@link QueryCache} under a name, which stands in for it in the cache's keys. Lambdas
+ * have no useful equality, so the name is what makes two queries the same.
+ */
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+@Getter
+public class NamedPredicate<T> implements Predicate<T> {
+
+  private final String name;
+  @Getter(AccessLevel.PACKAGE)
+  private final Predicate<T> predicate;
+
+  @Override
+  public boolean test(T node) {
+    return predicate.test(node);
+  }
+
+}
@@ -1,24 +1,65 @@
 package com.tgelder.network;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
-
+import java.util.stream.StreamSupport;
+
+/**
+ * A directed network. Queries never modify the network, so any number of threads can query the same network at once.
+ * Its nodes and the ends of its edges are fixed, and only {@link #updateCost} can change costs, by replacing edges
+ * with copies that have the new cost. Edges themselves never change, so networks sharing them, such as the results of
+ * {@link #merge}, are unaffected. Cost updates must not run at the same time as queries.
+ *
+ * <p>Searches and neighbour iteration run on a routing view, which numbers the nodes and keeps the cheapest edge
+ * between each pair of nodes in primitive arrays. The first query builds it. That is a one-off pass over every edge,
+ * taking seconds on networks of millions of edges, and the view's memory comes on top of the edge objects. Call
+ * {@link #buildRoutingView()} to pay that cost up front rather than in the first query.
+ *
+ * <p>A {@link SearchListener} set with {@link #setSearchListener} is told what each query did. Without one, queries
+ * only pay for checking that there is none.
+ */
 @AllArgsConstructor
 @Getter
 public class Network<T> {
 
   private final ImmutableSet<T> nodes;
-  private final ImmutableSet<Edge<T>> edges;
-
-  private final Map<T, ImmutableSet<Edge<T>>> out;
-  private final Map<T, ImmutableSet<Edge<T>>> in;
+  private ImmutableSet<Edge<T>> edges;
+
+  private Map<T, ImmutableSet<Edge<T>>> out;
+  private Map<T, ImmutableSet<Edge<T>>> in;
+
+  @Getter(AccessLevel.NONE)
+  private final Supplier<NodeIndex<T>> index = Suppliers.memoize(this::buildIndex);
+  @Getter(AccessLevel.NONE)
+  private final Supplier<IntNetwork> routing =
+          Suppliers.memoize(() -> IntNetwork.fromNetwork(this, getNodeIndex()).withoutParallelEdges());
+  @Getter(AccessLevel.NONE)
+  private final AtomicReference<SearchListener> listener = new AtomicReference<>();
+  @Getter(AccessLevel.NONE)
+  private final Supplier<ComponentIndex<T>> components =
+          Suppliers.memoize(() -> new ComponentIndex<>(getNodeIndex(), getRouting(), listener::get));
+  @Getter(AccessLevel.NONE)
+  private final List<ShortestPathTree<T>> trees = new CopyOnWriteArrayList<>();
+  @Getter(AccessLevel.NONE)
+  private final AtomicLong costVersion = new AtomicLong();
 
   public Network(ImmutableSet<T> nodes, ImmutableSet<Edge<T>> edges) {
     this(nodes, edges,
@@ -27,11 +68,48 @@ public class Network<T> {
   }
 
   public Stream<T> getBelow(T node) {
-    return getOut(node).map(Edge::getTo).distinct();
+    Stream.Builder<T> builder = Stream.builder();
+    forEachOut(node, (to, cost) -> builder.add(to));
+    return builder.build();
   }
 
   public Stream<T> getAbove(T node) {
-    return getIn(node).map(Edge::getFrom).distinct();
+    Stream.Builder<T> builder = Stream.builder();
+    forEachIn(node, (from, cost) -> builder.add(from));
+    return builder.build();
+  }
+
+  /**
+   * Calls consumer with each node that node has edges to and the cost of the cheapest of those edges, without building
+   * a stream. This walks the routing view of the network, which is built on first use or by
+   * {@link #buildRoutingView()}.
+   */
+  public void forEachOut(T node, ObjDoubleConsumer<T> consumer) {
+    NodeIndex<T> index = this.index.get();
+    int id = index.getId(node);
+    if (id >= 0) {
+      routing.get().forEachOut(id, (to, cost) -> consumer.accept(index.getNode(to), cost));
+    }
+  }
+
+  /**
+   * Calls consumer with each node that has edges to node and the cost of the cheapest of those edges.
+   */
+  public void forEachIn(T node, ObjDoubleConsumer<T> consumer) {
+    NodeIndex<T> index = this.index.get();
+    int id = index.getId(node);
+    if (id >= 0) {
+      routing.get().forEachIn(id, (from, cost) -> consumer.accept(index.getNode(from), cost));
+    }
+  }
+
+  /**
+   * Builds the routing view used by searches and neighbour iteration now rather than on first use. The view numbers
+   * the nodes and keeps only the cheapest of any parallel edges, in compressed sparse row arrays.
+   */
+  public Network<T> buildRoutingView() {
+    routing.get();
+    return this;
   }
 
   public Stream<Edge<T>> getOut(T node) {
@@ -60,129 +138,605 @@ public class Network<T> {
     return getEdges(edge.getTo(), edge.getFrom());
   }
 
+  /**
+   * Returns a network with the nodes and edges of both networks, except that where both have edges from one node to
+   * another, only the edges of other are kept. Adjacency sets that only one side contributes to are shared with it.
+   */
   public Network<T> merge(Network<T> other) {
     ImmutableSet<T> nodes = ImmutableSet.<T>builder().addAll(getNodes()).addAll(other.getNodes()).build();
     ImmutableSet.Builder<Edge<T>> edgeBuilder = ImmutableSet.<Edge<T>>builder().addAll(other.getEdges());
-    getEdges().stream()
-            .filter(e -> other.getEdges(e.getFrom(), e.getTo()).count() == 0)
-            .forEach(edgeBuilder::add);
-    return new Network(nodes, edgeBuilder.build());
-  }
 
-  private Set<T> search(T start, Search<T> search) {
-    Map<T, Double> open = new HashMap<>();
-    Set<T> closed = new HashSet<>();
+    Map<T, ImmutableSet<Edge<T>>> out = new HashMap<>(other.out);
+    Set<Edge<T>> replaced = Collections.newSetFromMap(new IdentityHashMap<>());
+    this.out.forEach((from, edges) -> {
+      ImmutableSet<Edge<T>> otherEdges = other.out.get(from);
+      if (otherEdges == null) {
+        out.put(from, edges);
+        edgeBuilder.addAll(edges);
+      } else {
+        Set<T> otherTargets = otherEdges.stream().map(Edge::getTo).collect(Collectors.toSet());
+        ImmutableSet.Builder<Edge<T>> merged = ImmutableSet.<Edge<T>>builder().addAll(otherEdges);
+        for (Edge<T> edge : edges) {
+          if (otherTargets.contains(edge.getTo())) {
+            replaced.add(edge);
+          } else {
+            merged.add(edge);
+            edgeBuilder.add(edge);
+          }
+        }
+        out.put(from, merged.build());
+      }
+    });
 
-    open.put(start, 0.0);
+    Map<T, ImmutableSet<Edge<T>>> in = new HashMap<>(other.in);
+    this.in.forEach((to, edges) -> {
+      ImmutableSet<Edge<T>> otherEdges = other.in.get(to);
+      if (otherEdges == null) {
+        in.put(to, edges);
+      } else {
+        ImmutableSet.Builder<Edge<T>> merged = ImmutableSet.<Edge<T>>builder().addAll(otherEdges);
+        edges.stream().filter(edge -> !replaced.contains(edge)).forEach(merged::add);
+        in.put(to, merged.build());
+      }
+    });
 
-    Set<T> out = new HashSet<>();
+    return new Network<>(nodes, edgeBuilder.build(), out, in);
+  }
+
+  /**
+   * Merges the networks in one pass, with the same result as merging them one after another from first to last.
+   */
+  public static <T> Network<T> mergeAll(Collection<Network<T>> networks) {
+    List<Network<T>> list = new ArrayList<>(networks);
+    ImmutableSet.Builder<T> nodes = ImmutableSet.builder();
+    list.forEach(network -> nodes.addAll(network.getNodes()));
+
+    List<Edge<T>> edges = new ArrayList<>();
+    Map<T, Set<T>> claimed = new HashMap<>();
+    for (int i = list.size() - 1; i >= 0; i--) {
+      Map<T, ImmutableSet<Edge<T>>> out = list.get(i).out;
+      out.forEach((from, fromEdges) -> {
+        Set<T> claimedTargets = claimed.get(from);
+        for (Edge<T> edge : fromEdges) {
+          if (claimedTargets == null || !claimedTargets.contains(edge.getTo())) {
+            edges.add(edge);
+          }
+        }
+      });
+      out.forEach((from, fromEdges) -> {
+        Set<T> claimedTargets = claimed.computeIfAbsent(from, key -> new HashSet<>());
+        fromEdges.forEach(edge -> claimedTargets.add(edge.getTo()));
+      });
+    }
 
-    while (!open.isEmpty()) {
-      T focus = Collections.min(open.keySet(), Comparator.comparingDouble(open::get));
-      double focusCost = open.get(focus);
+    return new Network<>(nodes.build(), ImmutableSet.copyOf(edges));
+  }
 
-      open.remove(focus);
-      closed.add(focus);
+  /**
+   * Changes the cost of an edge of this network as {@link #updateCosts} does, returning the edge that replaces it.
+   */
+  public Edge<T> updateCost(Edge<T> edge, double cost) {
+    return updateCosts(Collections.singletonMap(edge, cost)).get(edge);
+  }
 
-      if (search.take(focus, focusCost)) {
-        out.add(focus);
+  /**
+   * Changes the costs of edges of this network and repairs the shortest path trees created from it. Each edge is
+   * replaced by a copy with its new cost, and the copies are returned keyed by the edges they replace. Every call
+   * copies the edge set, so changes are much cheaper in batches. Indexes built from the network beforehand, such as
+   * {@link ContractionHierarchy} and {@link Landmarks}, are not updated.
+   */
+  public ImmutableMap<Edge<T>, Edge<T>> updateCosts(Map<Edge<T>, Double> costs) {
+    NodeIndex<T> index = this.index.get();
+    IntNetwork routing = this.routing.get();
+    costs.forEach((edge, cost) -> {
+      if (!edges.contains(edge)) {
+        throw new IllegalArgumentException("Edge from " + edge.getFrom() + " to " + edge.getTo()
+                + " is not in the network");
       }
-      if (search.done()) {
-        return out;
+      if (!(cost >= 0) || cost == Double.POSITIVE_INFINITY) {
+        throw new IllegalArgumentException("Edge costs must not be negative, infinite or NaN");
       }
+    });
 
-      Map<T, Optional<Edge<T>>> neighbours = getOut(focus)
-              .filter(e -> !closed.contains(e.getTo()))
-              .collect(Collectors.groupingBy(Edge::getTo, Collectors.minBy(Comparator.comparingDouble(Edge::getCost))));
+    // The routing network only keeps the cheapest of any parallel edges, so compare those before and after.
+    Map<T, Map<T, Double>> oldCheapest = new HashMap<>();
+    costs.keySet().forEach(edge -> oldCheapest.computeIfAbsent(edge.getFrom(), from -> new HashMap<>())
+            .computeIfAbsent(edge.getTo(), to -> getCheapestCost(edge.getFrom(), to)));
+    ImmutableMap.Builder<Edge<T>, Edge<T>> replacements = ImmutableMap.builder();
+    costs.forEach((edge, cost) -> replacements.put(edge, new Edge<>(edge.getFrom(), edge.getTo(), cost)));
+    ImmutableMap<Edge<T>, Edge<T>> replaced = replacements.build();
+    replaceEdges(replaced);
+
+    List<CostChange> changes = new ArrayList<>();
+    oldCheapest.forEach((from, targets) -> targets.forEach((to, oldCost) -> {
+      double newCost = getCheapestCost(from, to);
+      if (newCost != oldCost) {
+        int fromId = index.getId(from);
+        int toId = index.getId(to);
+        routing.updateCost(fromId, toId, oldCost, newCost);
+        changes.add(new CostChange(fromId, toId, oldCost, newCost));
+      }
+    }));
 
-      neighbours.forEach((node, edgeOptional) -> {
-        double cost = focusCost + edgeOptional.get().getCost();
-        open.merge(node, cost, Math::min);
-      });
+    if (!changes.isEmpty()) {
+      costVersion.incrementAndGet();
+      trees.forEach(tree -> tree.repair(changes));
     }
+    return replaced;
+  }
 
-    return out;
+  /**
+   * Swaps edges for their replacements in copies of the edge set and of the adjacency sets they belong to, leaving
+   * the sets this network may share with others untouched.
+   */
+  private void replaceEdges(Map<Edge<T>, Edge<T>> replacements) {
+    Map<T, ImmutableSet<Edge<T>>> out = new HashMap<>(this.out);
+    Map<T, ImmutableSet<Edge<T>>> in = new HashMap<>(this.in);
+    for (Edge<T> edge : replacements.keySet()) {
+      out.put(edge.getFrom(), replace(out.get(edge.getFrom()), replacements));
+      in.put(edge.getTo(), replace(in.get(edge.getTo()), replacements));
+    }
+    this.edges = replace(edges, replacements);
+    this.out = out;
+    this.in = in;
+  }
+
+  private static <T> ImmutableSet<Edge<T>> replace(ImmutableSet<Edge<T>> edges,
+                                                   Map<Edge<T>, Edge<T>> replacements) {
+    ImmutableSet.Builder<Edge<T>> builder = ImmutableSet.builder();
+    for (Edge<T> edge : edges) {
+      builder.add(replacements.getOrDefault(edge, edge));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Counts the calls to {@link #updateCosts} that changed the cost of a route, so that cached results can tell when
+   * they are out of date.
+   */
+  long getCostVersion() {
+    return costVersion.get();
+  }
+
+  /**
+   * Returns the cheapest paths from source to every node, which are kept up to date through {@link #updateCosts}
+   * until the tree is closed.
+   */
+  public ShortestPathTree<T> createShortestPathTree(T source) {
+    ShortestPathTree<T> tree = new ShortestPathTree<>(this, source);
+    trees.add(tree);
+    return tree;
+  }
+
+  void unregister(ShortestPathTree<T> tree) {
+    trees.remove(tree);
+  }
+
+  /**
+   * Returns the strongly connected components of the network, which are found the first time they are asked for.
+   */
+  public ComponentIndex<T> getComponentIndex() {
+    return components.get();
+  }
+
+  /**
+   * Sets the listener told about each query from now on, replacing any previous one, or removes it if null. The
+   * searches behind findClosest, findKClosest, getNodes, getIsochrone, findPath and distance are reported, including
+   * findClosest through the {@link #getComponentIndex component index}. Queries for unknown start nodes are not
+   * reported, and nor are {@link #stream} and {@link #getNodes(Object, int, DeltaStepping)}: a stream's search has no
+   * end until it is dropped, and delta stepping does not count what it settles.
+   */
+  public void setSearchListener(SearchListener listener) {
+    this.listener.set(listener);
+  }
+
+  static void report(SearchListener listener,
+                     QueryType type,
+                     long started,
+                     Termination termination,
+                     SearchContext... contexts) {
+    long nanos = System.nanoTime() - started;
+    long settled = 0;
+    long relaxed = 0;
+    int peakOpen = 0;
+    for (SearchContext context : contexts) {
+      settled += context.getSettledCount();
+      relaxed += context.getRelaxedCount();
+      peakOpen = Math.max(peakOpen, context.getPeakOpenSize());
+    }
+    listener.onSearch(new SearchStats(type, settled, relaxed, peakOpen, nanos, termination));
+  }
+
+  static Termination stoppedBy(SearchContext context, Termination otherwise) {
+    return context.isDrained() ? Termination.EXHAUSTED : otherwise;
+  }
+
+  private static Termination reached(boolean found) {
+    return found ? Termination.GOAL_REACHED : Termination.EXHAUSTED;
+  }
+
+  NodeIndex<T> getNodeIndex() {
+    return index.get();
+  }
+
+  IntNetwork getRouting() {
+    return routing.get();
+  }
+
+  private NodeIndex<T> buildIndex() {
+    Set<T> all = new LinkedHashSet<>(nodes);
+    for (Edge<T> edge : edges) {
+      all.add(edge.getFrom());
+      all.add(edge.getTo());
+    }
+    return NodeIndex.of(all);
+  }
+
+  private double getCheapestCost(T from, T to) {
+    return getEdges(from, to).mapToDouble(Edge::getCost).min().getAsDouble();
+  }
+
+  Edge<T> getCheapestEdge(int from, int to) {
+    NodeIndex<T> index = this.index.get();
+    return getEdges(index.getNode(from), index.getNode(to))
+            .min(Comparator.comparingDouble(Edge::getCost))
+            .get();
   }
 
   public Set<T> findClosest(T start, Predicate<T> stoppingCondition) {
+    SearchContext context = SearchContext.acquire();
+    try {
+      return findClosest(start, stoppingCondition, context);
+    } finally {
+      context.release();
+    }
+  }
 
-    return search(start, new Search<T>() {
+  public Set<T> findClosest(T start, Predicate<T> stoppingCondition, SearchContext context) {
+    NodeIndex<T> index = this.index.get();
+    Set<T> out = new HashSet<>();
+    int id = index.getId(start);
+    if (id >= 0) {
+      SearchListener listener = this.listener.get();
+      long started = listener == null ? 0 : System.nanoTime();
+      int[] found = routing.get().findClosest(id, n -> stoppingCondition.test(index.getNode(n)), context);
+      if (listener != null) {
+        report(listener, QueryType.FIND_CLOSEST, started, stoppedBy(context, Termination.MATCH_FOUND), context);
+      }
+      for (int node : found) {
+        out.add(index.getNode(node));
+      }
+    }
+    return out;
+  }
 
-      private boolean done = false;
-      private Double closestCost = null;
+  /**
+   * As {@link #findClosest(Object, Predicate)}, but with the cost of each node found and the path to it.
+   */
+  public SearchResult<T> findClosestPaths(T start, Predicate<T> stoppingCondition) {
+    return search(start, stoppingCondition, 0);
+  }
 
-      @Override
-      public boolean take(T node, double focusCost) {
-        if ((!node.equals(start)) && stoppingCondition.test(node)) {
-          if (closestCost == null) {
-            closestCost = focusCost;
-            return true;
-          } else if (focusCost == closestCost) {
-            return true;
-          } else if (focusCost > closestCost) {
-            done = true;
-            return false;
-          } else {
-            throw new RuntimeException("Invalid state");
+  /**
+   * Returns the k nodes satisfying the predicate that are closest to start, excluding start, in order of cost with the
+   * paths to them. Fewer are returned if fewer can be reached. Ties at the kth cost are broken arbitrarily.
+   */
+  public SearchResult<T> findKClosest(T start, Predicate<T> predicate, int k) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k must be positive");
+    }
+    return search(start, predicate, k);
+  }
+
+  private SearchResult<T> search(T start, Predicate<T> predicate, int k) {
+    NodeIndex<T> index = this.index.get();
+    int id = index.getId(start);
+    if (id < 0) {
+      return SearchResult.empty(start);
+    }
+    SearchListener listener = this.listener.get();
+    long started = listener == null ? 0 : System.nanoTime();
+    SearchContext context = SearchContext.acquire();
+    try {
+      int[] matches = routing.get().collect(id, node -> predicate.test(index.getNode(node)), k, null, context);
+      if (listener != null) {
+        QueryType type = k == 0 ? QueryType.FIND_CLOSEST : QueryType.FIND_K_CLOSEST;
+        report(listener, type, started, stoppedBy(context, Termination.MATCH_FOUND), context);
+      }
+      return SearchResult.of(start, matches, context, index, this::getCheapestEdge);
+    } finally {
+      context.release();
+    }
+  }
+
+  /**
+   * Runs {@link #findClosest(Object, Predicate)} from each start in parallel on the common pool, returning the results
+   * in the same order as the starts.
+   */
+  public List<Set<T>> findClosestAll(Collection<T> starts, Predicate<T> stoppingCondition) {
+    return findClosestAll(starts, stoppingCondition, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Runs {@link #findClosest(Object, Predicate)} from each start in parallel on the given pool, returning the results
+   * in the same order as the starts. Each worker thread reuses its own {@link SearchContext}.
+   */
+  public List<Set<T>> findClosestAll(Collection<T> starts, Predicate<T> stoppingCondition, ForkJoinPool pool) {
+    List<T> startList = new ArrayList<>(starts);
+    return pool.submit(() -> startList.parallelStream()
+            .map(start -> findClosest(start, stoppingCondition))
+            .collect(Collectors.toList()))
+            .join();
+  }
+
+  public Set<T> getNodes(T start, int maxCost) {
+    SearchContext context = SearchContext.acquire();
+    try {
+      return getNodes(start, maxCost, context);
+    } finally {
+      context.release();
+    }
+  }
+
+  public Set<T> getNodes(T start, int maxCost, SearchContext context) {
+    NodeIndex<T> index = this.index.get();
+    Set<T> out = new HashSet<>();
+    int id = index.getId(start);
+    if (id >= 0) {
+      SearchListener listener = this.listener.get();
+      long started = listener == null ? 0 : System.nanoTime();
+      int[] found = routing.get().getNodes(id, maxCost, context);
+      if (listener != null) {
+        report(listener, QueryType.GET_NODES, started, stoppedBy(context, Termination.COST_LIMIT), context);
+      }
+      for (int node : found) {
+        out.add(index.getNode(node));
+      }
+    } else if (maxCost > 0) {
+      out.add(start);
+    }
+    return out;
+  }
+
+  public Isochrone<T> getIsochrone(T start, double... thresholds) {
+    return getIsochrone(start, thresholds, false);
+  }
+
+  /**
+   * Splits the nodes around start into bands by cost, exploring each ring only once. The thresholds must be in
+   * strictly increasing order. If includeCosts is set, the cost of every node in a band is kept too.
+   */
+  public Isochrone<T> getIsochrone(T start, double[] thresholds, boolean includeCosts) {
+    AbstractIntNetwork.checkThresholds(thresholds);
+    List<ImmutableSet.Builder<T>> bands = new ArrayList<>();
+    for (int i = 0; i < thresholds.length; i++) {
+      bands.add(ImmutableSet.builder());
+    }
+    ImmutableMap.Builder<T, Double> costs = ImmutableMap.builder();
+
+    NodeIndex<T> index = this.index.get();
+    int id = index.getId(start);
+    if (id < 0) {
+      int band = 0;
+      while (band < thresholds.length && thresholds[band] <= 0) {
+        band++;
+      }
+      if (band < thresholds.length) {
+        bands.get(band).add(start);
+        if (includeCosts) {
+          costs.put(start, 0.0);
+        }
+      }
+    } else {
+      SearchListener listener = this.listener.get();
+      long started = listener == null ? 0 : System.nanoTime();
+      SearchContext context = SearchContext.acquire();
+      try {
+        context.start(routing.get(), id, true, null);
+        int band = 0;
+        for (int node = context.next(); node >= 0; node = context.next()) {
+          double cost = context.getCost(node);
+          while (band < thresholds.length && cost >= thresholds[band]) {
+            band++;
+          }
+          if (band == thresholds.length) {
+            break;
+          }
+          bands.get(band).add(index.getNode(node));
+          if (includeCosts) {
+            costs.put(index.getNode(node), cost);
           }
-        } else {
-          return false;
         }
+        if (listener != null) {
+          report(listener, QueryType.ISOCHRONE, started, stoppedBy(context, Termination.COST_LIMIT), context);
+        }
+      } finally {
+        context.release();
       }
+    }
 
-      @Override
-      public boolean done() {
-        return done;
+    return new Isochrone<>(start,
+            Arrays.stream(thresholds).boxed().collect(ImmutableList.toImmutableList()),
+            bands.stream().map(ImmutableSet.Builder::build).collect(ImmutableList.toImmutableList()),
+            costs.build());
+  }
+
+  /**
+   * As {@link #getNodes(Object, int)}, but searching in parallel with the given delta stepping engine, which pays off
+   * when the search settles a large part of a big network.
+   */
+  public Set<T> getNodes(T start, int maxCost, DeltaStepping engine) {
+    NodeIndex<T> index = this.index.get();
+    Set<T> out = new HashSet<>();
+    int id = index.getId(start);
+    if (id >= 0) {
+      for (int node : routing.get().getNodes(id, maxCost, engine)) {
+        out.add(index.getNode(node));
       }
-    });
+    } else if (maxCost > 0) {
+      out.add(start);
+    }
+    return out;
   }
 
-  public Set<T> getNodes(T start, int maxCost) {
-    return search(start, new Search<T>() {
+  /**
+   * Returns the nodes reachable from start, including start itself, in order of non-decreasing cost. The search only
+   * advances as the stream is consumed, so short-circuiting operations such as limit and anyMatch end it early.
+   */
+  public Stream<Reached<T>> stream(T start) {
+    return stream(start, new SearchContext());
+  }
 
-      private boolean done = false;
+  /**
+   * As {@link #stream(Object)}, but searching with the given context, which must not be used for anything else until
+   * the stream is finished with.
+   */
+  public Stream<Reached<T>> stream(T start, SearchContext context) {
+    NodeIndex<T> index = this.index.get();
+    int id = index.getId(start);
+    if (id < 0) {
+      return Stream.of(new Reached<>(start, 0));
+    }
 
+    context.start(routing.get(), id, true, null);
+    Spliterator<Reached<T>> spliterator = new Spliterators.AbstractSpliterator<Reached<T>>(
+            Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL) {
       @Override
-      public boolean take(T node, double focusCost) {
-        if (focusCost >= maxCost) {
-          done = true;
+      public boolean tryAdvance(Consumer<? super Reached<T>> action) {
+        int node = context.next();
+        if (node < 0) {
           return false;
-        } else {
-          return true;
         }
+        action.accept(new Reached<>(index.getNode(node), context.getCost(node)));
+        return true;
       }
+    };
+    return StreamSupport.stream(spliterator, false);
+  }
 
-      @Override
-      public boolean done() {
-        return done;
+  public Optional<Path<T>> findPath(T start, T goal, Heuristic<T> heuristic) {
+    NodeIndex<T> index = this.index.get();
+    int from = index.getId(start);
+    int to = index.getId(goal);
+    if (from < 0 || to < 0) {
+      return start.equals(goal) ? Optional.of(new Path<>(start, ImmutableList.of(), 0)) : Optional.empty();
+    }
+
+    SearchListener listener = this.listener.get();
+    long started = listener == null ? 0 : System.nanoTime();
+    SearchContext context = SearchContext.acquire();
+    try {
+      double cost = routing.get().searchTo(from, to, node -> heuristic.estimate(index.getNode(node), goal), context);
+      if (listener != null) {
+        report(listener, QueryType.FIND_PATH, started, reached(!Double.isNaN(cost)), context);
       }
-    });
+      if (Double.isNaN(cost)) {
+        return Optional.empty();
+      }
+
+      LinkedList<Edge<T>> edges = new LinkedList<>();
+      for (int node = to; node != from; node = context.getPrevious(node)) {
+        edges.addFirst(getCheapestEdge(context.getPrevious(node), node));
+      }
+      return Optional.of(new Path<>(start, ImmutableList.copyOf(edges), cost));
+    } finally {
+      context.release();
+    }
   }
 
-  private interface Search<T> {
-    boolean take(T node, double focusCost);
+  public OptionalDouble distance(T start, T goal, Heuristic<T> heuristic) {
+    NodeIndex<T> index = this.index.get();
+    int from = index.getId(start);
+    int to = index.getId(goal);
+    if (from < 0 || to < 0) {
+      return start.equals(goal) ? OptionalDouble.of(0) : OptionalDouble.empty();
+    }
 
-    boolean done();
+    SearchListener listener = this.listener.get();
+    long started = listener == null ? 0 : System.nanoTime();
+    SearchContext context = SearchContext.acquire();
+    try {
+      double cost = routing.get().searchTo(from, to, node -> heuristic.estimate(index.getNode(node), goal), context);
+      if (listener != null) {
+        report(listener, QueryType.DISTANCE, started, reached(!Double.isNaN(cost)), context);
+      }
+      return Double.isNaN(cost) ? OptionalDouble.empty() : OptionalDouble.of(cost);
+    } finally {
+      context.release();
+    }
+  }
+
+  public Optional<Path<T>> findPath(T start, T goal) {
+    NodeIndex<T> index = this.index.get();
+    int from = index.getId(start);
+    int to = index.getId(goal);
+    if (from < 0 || to < 0) {
+      return start.equals(goal) ? Optional.of(new Path<>(start, ImmutableList.of(), 0)) : Optional.empty();
+    }
+
+    SearchListener listener = this.listener.get();
+    long started = listener == null ? 0 : System.nanoTime();
+    SearchContext forward = SearchContext.acquire();
+    try {
+      SearchContext backward = forward.getPartner();
+      int meeting = routing.get().searchBidirectional(from, to, forward, backward);
+      if (listener != null) {
+        report(listener, QueryType.FIND_PATH, started, reached(meeting >= 0), forward, backward);
+      }
+      if (meeting < 0) {
+        return Optional.empty();
+      }
+
+      LinkedList<Edge<T>> edges = new LinkedList<>();
+      for (int node = meeting; node != from; node = forward.getPrevious(node)) {
+        edges.addFirst(getCheapestEdge(forward.getPrevious(node), node));
+      }
+      for (int node = meeting; node != to; node = backward.getPrevious(node)) {
+        edges.addLast(getCheapestEdge(node, backward.getPrevious(node)));
+      }
+      return Optional.of(new Path<>(start, ImmutableList.copyOf(edges),
+              forward.getCost(meeting) + backward.getCost(meeting)));
+    } finally {
+      forward.release();
+    }
   }
 
-  @AllArgsConstructor
-  @Getter
-  private class Exit {
-    private final T neighbour;
-    private final Edge edge;
+  public OptionalDouble distance(T start, T goal) {
+    NodeIndex<T> index = this.index.get();
+    int from = index.getId(start);
+    int to = index.getId(goal);
+    if (from < 0 || to < 0) {
+      return start.equals(goal) ? OptionalDouble.of(0) : OptionalDouble.empty();
+    }
+
+    SearchListener listener = this.listener.get();
+    long started = listener == null ? 0 : System.nanoTime();
+    SearchContext forward = SearchContext.acquire();
+    try {
+      SearchContext backward = forward.getPartner();
+      int meeting = routing.get().searchBidirectional(from, to, forward, backward);
+      if (listener != null) {
+        report(listener, QueryType.DISTANCE, started, reached(meeting >= 0), forward, backward);
+      }
+      if (meeting < 0) {
+        return OptionalDouble.empty();
+      } else {
+        return OptionalDouble.of(forward.getCost(meeting) + backward.getCost(meeting));
+      }
+    } finally {
+      forward.release();
+    }
   }
 
   public static Network<Integer> createGridNetwork(int width,
                                                    int height,
                                                    int[] neighbourDXs,
                                                    int[] neighbourDYs) {
-    ImmutableSet<Integer> nodes = IntStream
-            .range(0, width * height).boxed()
-            .collect(ImmutableSet.toImmutableSet());
+    NetworkBuilder<Integer> builder = new NetworkBuilder<>();
+    builder.addNodes(() -> IntStream.range(0, width * height).iterator());
 
-    ImmutableSet.Builder<Edge<Integer>> edgeBuilder = ImmutableSet.builder();
-
-    for (int x = 0; x < width; x++) {
+    List<List<Edge<Integer>>> columns = IntStream.range(0, width).parallel().mapToObj(x -> {
+      List<Edge<Integer>> column = new ArrayList<>(height * neighbourDXs.length);
       for (int y = 0; y < height; y++) {
         for (int n = 0; n < neighbourDXs.length; n++) {
 
@@ -198,13 +752,16 @@ public class Network<T> {
           double cost = Math.sqrt(dx * dx + dy * dy);
 
           if (nx >= 0 && ny >= 0 && nx < width && ny < height) {
-            edgeBuilder.add(new Edge<>(index, nindex, cost));
+            column.add(new Edge<>(index, nindex, cost));
           }
         }
       }
-    }
+      return column;
+    }).collect(Collectors.toList());
 
-    return new Network(nodes, edgeBuilder.build());
+    builder.ensureCapacity(columns.stream().mapToInt(List::size).sum());
+    columns.forEach(builder::addEdges);
+    return builder.build();
   }
 
 }
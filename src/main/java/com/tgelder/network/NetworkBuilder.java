@@ -0,0 +1,357 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Builds a {@link Network} from edges added one at a time or in bulk. Nodes are numbered as they are first seen, so
+ * that {@link #build} can fill the adjacency sets by counting the edges out of and into each node and then placing
+ * them, rather than grouping them through hash maps. The two directions are built at the same time and the sets for
+ * each node in parallel.
+ *
+ * <p>Edge lists can be read from files, either as text with a from,to,cost line per edge or as binary records of a
+ * little-endian int from, int to and double cost. Files are memory mapped and parsed in parallel chunks. A builder is
+ * not safe to use from more than one thread at once.
+ */
+public class NetworkBuilder<T> {
+
+  static final int BINARY_RECORD_BYTES = 16;
+  private static final int DEFAULT_CHUNK_BYTES = 1 << 24;
+
+  private final Map<T, Integer> ids = new HashMap<>();
+  private final List<T> nodes = new ArrayList<>();
+  private final IntList froms = new IntList();
+  private final IntList tos = new IntList();
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Edge<T>[] edges = new Edge[16];
+  private int edgeCount = 0;
+
+  /**
+   * Adds a node, which needs doing only for nodes without edges.
+   */
+  public NetworkBuilder<T> addNode(T node) {
+    getId(node);
+    return this;
+  }
+
+  public NetworkBuilder<T> addNodes(Iterable<T> nodes) {
+    nodes.forEach(this::getId);
+    return this;
+  }
+
+  public NetworkBuilder<T> addEdge(T from, T to, double cost) {
+    return addEdge(new Edge<>(from, to, cost));
+  }
+
+  public NetworkBuilder<T> addEdge(Edge<T> edge) {
+    if (edgeCount == edges.length) {
+      ensureCapacity(edgeCount + 1);
+    }
+    edges[edgeCount++] = edge;
+    froms.add(getId(edge.getFrom()));
+    tos.add(getId(edge.getTo()));
+    return this;
+  }
+
+  public NetworkBuilder<T> addEdges(Iterator<Edge<T>> edges) {
+    edges.forEachRemaining(this::addEdge);
+    return this;
+  }
+
+  /**
+   * Adds the edges of the stream in its encounter order. A parallel stream creates its edges in parallel.
+   */
+  public NetworkBuilder<T> addEdges(Stream<Edge<T>> edges) {
+    return addEdges(edges.collect(Collectors.toList()));
+  }
+
+  public NetworkBuilder<T> addEdges(Collection<Edge<T>> edges) {
+    ensureCapacity(edgeCount + edges.size());
+    edges.forEach(this::addEdge);
+    return this;
+  }
+
+  /**
+   * Makes room for capacity edges in all, to save growing the builder's arrays one step at a time.
+   */
+  public NetworkBuilder<T> ensureCapacity(int capacity) {
+    if (capacity > edges.length) {
+      edges = Arrays.copyOf(edges, Math.max(capacity, edges.length * 2));
+    }
+    froms.ensureCapacity(capacity);
+    tos.ensureCapacity(capacity);
+    return this;
+  }
+
+  public int getNodeCount() {
+    return nodes.size();
+  }
+
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  private int getId(T node) {
+    Integer id = ids.get(node);
+    if (id == null) {
+      id = nodes.size();
+      ids.put(node, id);
+      nodes.add(node);
+    }
+    return id;
+  }
+
+  /**
+   * Builds the network, with its nodes in the order they were first added or seen on an edge. The builder can carry
+   * on being used afterwards.
+   */
+  public Network<T> build() {
+    // Everything built here is copied out of the builder's arrays before returning, so they can be read in place.
+    List<Edge<T>> all = Arrays.asList(edges).subList(0, edgeCount);
+    int count = edgeCount;
+
+    CompletableFuture<ImmutableSet<Edge<T>>> edgeSet = CompletableFuture.supplyAsync(() -> ImmutableSet.copyOf(all));
+    CompletableFuture<Map<T, ImmutableSet<Edge<T>>>> in =
+            CompletableFuture.supplyAsync(() -> adjacency(all, tos, count, nodes));
+    Map<T, ImmutableSet<Edge<T>>> out = adjacency(all, froms, count, nodes);
+    ImmutableSet<T> nodeSet = ImmutableSet.copyOf(nodes);
+
+    return new Network<>(nodeSet, edgeSet.join(), out, in.join());
+  }
+
+  /**
+   * Groups the edges by the node at one end, given by ends, keeping the order they were added in.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static <T> Map<T, ImmutableSet<Edge<T>>> adjacency(List<Edge<T>> edges,
+                                                             IntList ends,
+                                                             int count,
+                                                             List<T> nodes) {
+    int size = nodes.size();
+    int[] offsets = new int[size + 1];
+    for (int i = 0; i < count; i++) {
+      offsets[ends.get(i) + 1]++;
+    }
+    for (int node = 0; node < size; node++) {
+      offsets[node + 1] += offsets[node];
+    }
+    int[] fill = Arrays.copyOf(offsets, size);
+    Edge<T>[] placed = new Edge[count];
+    for (int i = 0; i < count; i++) {
+      placed[fill[ends.get(i)]++] = edges.get(i);
+    }
+
+    List<Edge<T>> placedList = Arrays.asList(placed);
+    ImmutableSet<Edge<T>>[] sets = new ImmutableSet[size];
+    IntStream.range(0, size).parallel()
+            .filter(node -> offsets[node + 1] > offsets[node])
+            .forEach(node -> sets[node] = ImmutableSet.copyOf(placedList.subList(offsets[node], offsets[node + 1])));
+
+    Map<T, ImmutableSet<Edge<T>>> out = new HashMap<>();
+    for (int node = 0; node < size; node++) {
+      if (sets[node] != null) {
+        out.put(nodes.get(node), sets[node]);
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Reads a text edge list with a from,to,cost line per edge, where from and to are int nodes. Blank lines and lines
+   * starting with # are skipped.
+   */
+  public static NetworkBuilder<Integer> readCsv(File file) throws IOException {
+    return readCsv(file, DEFAULT_CHUNK_BYTES);
+  }
+
+  static NetworkBuilder<Integer> readCsv(File file, int chunkBytes) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      LongList bounds = new LongList();
+      bounds.add(0);
+      ByteBuffer one = ByteBuffer.allocate(1);
+      for (long position = chunkBytes; position < size; position += chunkBytes) {
+        // Move each boundary to just after the next line break.
+        long boundary = Math.max(position, bounds.last());
+        while (boundary < size) {
+          one.clear();
+          channel.read(one, boundary++);
+          if (one.get(0) == '\n') {
+            break;
+          }
+        }
+        if (boundary > bounds.last() && boundary < size) {
+          bounds.add(boundary);
+        }
+      }
+      bounds.add(size);
+
+      return readChunks(bounds, chunk -> parseCsv(channel, bounds.get(chunk), bounds.get(chunk + 1)));
+    }
+  }
+
+  private static List<Edge<Integer>> parseCsv(FileChannel channel, long start, long end) throws IOException {
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    List<Edge<Integer>> edges = new ArrayList<>();
+    int position = 0;
+    int limit = buffer.limit();
+    while (position < limit) {
+      int lineEnd = position;
+      while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+        lineEnd++;
+      }
+      String line = decode(buffer, position, lineEnd).trim();
+      if (!line.isEmpty() && line.charAt(0) != '#') {
+        String[] fields = line.split(",");
+        try {
+          if (fields.length != 3) {
+            throw new NumberFormatException();
+          }
+          edges.add(new Edge<>(Integer.parseInt(fields[0].trim()),
+                  Integer.parseInt(fields[1].trim()),
+                  Double.parseDouble(fields[2].trim())));
+        } catch (NumberFormatException e) {
+          throw new IOException("Malformed edge at byte " + (start + position) + ": " + line);
+        }
+      }
+      position = lineEnd + 1;
+    }
+    return edges;
+  }
+
+  private static String decode(ByteBuffer buffer, int from, int to) {
+    byte[] bytes = new byte[to - from];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(from + i);
+    }
+    return new String(bytes, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Reads a binary edge list of {@value #BINARY_RECORD_BYTES} byte records, each a little-endian int from, int to and
+   * double cost.
+   */
+  public static NetworkBuilder<Integer> readBinary(File file) throws IOException {
+    return readBinary(file, DEFAULT_CHUNK_BYTES);
+  }
+
+  static NetworkBuilder<Integer> readBinary(File file, int chunkBytes) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size % BINARY_RECORD_BYTES != 0) {
+        throw new IOException("Edge list is " + size + " bytes, which is not a whole number of records");
+      }
+      long step = Math.max(1, chunkBytes / BINARY_RECORD_BYTES) * BINARY_RECORD_BYTES;
+      LongList bounds = new LongList();
+      for (long position = 0; position < size; position += step) {
+        bounds.add(position);
+      }
+      bounds.add(size);
+
+      return readChunks(bounds, chunk -> {
+        long start = bounds.get(chunk);
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, bounds.get(chunk + 1) - start)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        List<Edge<Integer>> edges = new ArrayList<>(buffer.limit() / BINARY_RECORD_BYTES);
+        for (int position = 0; position < buffer.limit(); position += BINARY_RECORD_BYTES) {
+          edges.add(new Edge<>(buffer.getInt(position), buffer.getInt(position + 4), buffer.getDouble(position + 8)));
+        }
+        return edges;
+      });
+    }
+  }
+
+  /**
+   * Parses the chunks between consecutive bounds in parallel and adds their edges in file order.
+   */
+  private static NetworkBuilder<Integer> readChunks(LongList bounds, ChunkParser parser) throws IOException {
+    List<List<Edge<Integer>>> chunks;
+    try {
+      chunks = IntStream.range(0, bounds.size() - 1).parallel()
+              .mapToObj(chunk -> {
+                try {
+                  return parser.parse(chunk);
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              })
+              .collect(Collectors.toList());
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+
+    NetworkBuilder<Integer> builder = new NetworkBuilder<>();
+    builder.ensureCapacity(chunks.stream().mapToInt(List::size).sum());
+    chunks.forEach(builder::addEdges);
+    return builder;
+  }
+
+  /**
+   * Writes edges between int nodes in the format read by {@link #readBinary}.
+   */
+  public static void writeBinary(Iterable<Edge<Integer>> edges, File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.allocate(BINARY_RECORD_BYTES * 4096).order(ByteOrder.LITTLE_ENDIAN);
+      for (Edge<Integer> edge : edges) {
+        if (!buffer.hasRemaining()) {
+          flush(channel, buffer);
+        }
+        buffer.putInt(edge.getFrom()).putInt(edge.getTo()).putDouble(edge.getCost());
+      }
+      flush(channel, buffer);
+    }
+  }
+
+  private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private interface ChunkParser {
+
+    List<Edge<Integer>> parse(int chunk) throws IOException;
+
+  }
+
+  private static class LongList {
+
+    private long[] values = new long[8];
+    private int size = 0;
+
+    private void add(long value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    private long get(int index) {
+      return values[index];
+    }
+
+    private long last() {
+      return values[size - 1];
+    }
+
+    private int size() {
+      return size;
+    }
+  }
+
+}
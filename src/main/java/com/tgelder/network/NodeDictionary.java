@@ -0,0 +1,39 @@
+package com.tgelder.network;
+
+/**
+ * Maps the nodes of a network to the ids 0 to size - 1 and back.
+ */
+public interface NodeDictionary<T> {
+
+  int size();
+
+  /**
+   * Returns the id of node, or -1 if it is not in the dictionary.
+   */
+  int getId(T node);
+
+  T getNode(int id);
+
+  /**
+   * The dictionary for networks whose nodes are already the ints 0 to size - 1, which needs no storage.
+   */
+  static NodeDictionary<Integer> integers(int size) {
+    return new NodeDictionary<Integer>() {
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public int getId(Integer node) {
+        return node >= 0 && node < size ? node : -1;
+      }
+
+      @Override
+      public Integer getNode(int id) {
+        return id;
+      }
+    };
+  }
+
+}
@@ -0,0 +1,48 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.Serializable;
+
+public class NodeIndex<T> implements NodeDictionary<T>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final ImmutableList<T> nodes;
+  private final ImmutableMap<T, Integer> ids;
+
+  private NodeIndex(ImmutableList<T> nodes) {
+    this.nodes = nodes;
+    ImmutableMap.Builder<T, Integer> builder = ImmutableMap.builder();
+    for (int i = 0; i < nodes.size(); i++) {
+      builder.put(nodes.get(i), i);
+    }
+    this.ids = builder.build();
+  }
+
+  public static <T> NodeIndex<T> of(Iterable<T> nodes) {
+    return new NodeIndex<>(ImmutableList.copyOf(nodes));
+  }
+
+  @Override
+  public int size() {
+    return nodes.size();
+  }
+
+  @Override
+  public int getId(T node) {
+    Integer id = ids.get(node);
+    return id == null ? -1 : id;
+  }
+
+  @Override
+  public T getNode(int id) {
+    return nodes.get(id);
+  }
+
+  public ImmutableList<T> getNodes() {
+    return nodes;
+  }
+
+}
@@ -0,0 +1,87 @@
+package com.tgelder.network;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A fixed length array of ints, longs or doubles held in direct buffers outside the heap. It is split into segments so
+ * that it can hold more than the 2GB a single buffer can address. Direct buffers count against
+ * -XX:MaxDirectMemorySize, which defaults to the maximum heap size.
+ */
+class OffHeapArray {
+
+  static final int SEGMENT_BYTES = 1 << 30;
+
+  private final ByteBuffer[] segments;
+  private final int elementShift;
+  private final int segmentShift;
+  private final int offsetMask;
+  private final long length;
+
+  OffHeapArray(long length, int elementBytes) {
+    this(length, elementBytes, SEGMENT_BYTES);
+  }
+
+  OffHeapArray(long length, int elementBytes, int segmentBytes) {
+    if (Integer.bitCount(elementBytes) != 1 || Integer.bitCount(segmentBytes) != 1 || segmentBytes < elementBytes) {
+      throw new IllegalArgumentException("Element and segment sizes must be powers of two");
+    }
+    this.length = length;
+    elementShift = Integer.numberOfTrailingZeros(elementBytes);
+    segmentShift = Integer.numberOfTrailingZeros(segmentBytes);
+    offsetMask = segmentBytes - 1;
+
+    long bytes = length << elementShift;
+    segments = new ByteBuffer[(int) ((bytes + segmentBytes - 1) >>> segmentShift)];
+    for (int s = 0; s < segments.length; s++) {
+      int segmentLength = (int) Math.min(segmentBytes, bytes - ((long) s << segmentShift));
+      segments[s] = allocate(segmentLength);
+    }
+  }
+
+  private static ByteBuffer allocate(int bytes) {
+    try {
+      return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    } catch (OutOfMemoryError e) {
+      OutOfMemoryError rethrown = new OutOfMemoryError(e.getMessage() + ": off heap arrays are limited by "
+              + "-XX:MaxDirectMemorySize, which defaults to the maximum heap size, so raise it for larger networks");
+      rethrown.initCause(e);
+      throw rethrown;
+    }
+  }
+
+  long length() {
+    return length;
+  }
+
+  int getInt(long index) {
+    long offset = index << elementShift;
+    return segments[(int) (offset >>> segmentShift)].getInt((int) offset & offsetMask);
+  }
+
+  void setInt(long index, int value) {
+    long offset = index << elementShift;
+    segments[(int) (offset >>> segmentShift)].putInt((int) offset & offsetMask, value);
+  }
+
+  long getLong(long index) {
+    long offset = index << elementShift;
+    return segments[(int) (offset >>> segmentShift)].getLong((int) offset & offsetMask);
+  }
+
+  void setLong(long index, long value) {
+    long offset = index << elementShift;
+    segments[(int) (offset >>> segmentShift)].putLong((int) offset & offsetMask, value);
+  }
+
+  double getDouble(long index) {
+    long offset = index << elementShift;
+    return segments[(int) (offset >>> segmentShift)].getDouble((int) offset & offsetMask);
+  }
+
+  void setDouble(long index, double value) {
+    long offset = index << elementShift;
+    segments[(int) (offset >>> segmentShift)].putDouble((int) offset & offsetMask, value);
+  }
+
+}
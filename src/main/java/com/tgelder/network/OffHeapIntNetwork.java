@@ -0,0 +1,128 @@
+package com.tgelder.network;
+
+/**
+ * A network over the nodes 0 to size - 1 whose compressed sparse row adjacency and costs live in {@link OffHeapArray}s,
+ * so that it can hold billions of edges without adding to the heap or to garbage collection pauses.
+ *
+ * <p>The arrays are direct buffers, which count against -XX:MaxDirectMemorySize rather than the heap. That limit
+ * defaults to -Xmx, so a network larger than the heap needs it raised, or construction fails with
+ * OutOfMemoryError.
+ */
+public class OffHeapIntNetwork extends AbstractIntNetwork {
+
+  private final int size;
+  private final boolean discreteCosts;
+
+  private final OffHeapArray outOffsets;
+  private final OffHeapArray outTargets;
+  private final OffHeapArray outCosts;
+
+  private final OffHeapArray inOffsets;
+  private final OffHeapArray inSources;
+  private final OffHeapArray inCosts;
+
+  /**
+   * Copies the edges of any int network, such as a {@link GridNetwork} or {@link MappedIntNetwork}, one node at a time
+   * without collecting them on the heap first.
+   */
+  public OffHeapIntNetwork(AbstractIntNetwork source) {
+    size = source.size();
+    discreteCosts = source.hasDiscreteCosts();
+
+    outOffsets = new OffHeapArray(size + 1L, 8);
+    long edgeCount = countEdges(source, true, outOffsets);
+    outTargets = new OffHeapArray(edgeCount, 4);
+    outCosts = new OffHeapArray(edgeCount, 8);
+    fill(source, true, outOffsets, outTargets, outCosts);
+
+    inOffsets = new OffHeapArray(size + 1L, 8);
+    if (countEdges(source, false, inOffsets) != edgeCount) {
+      throw new IllegalArgumentException("Source network has different numbers of edges out and in");
+    }
+    inSources = new OffHeapArray(edgeCount, 4);
+    inCosts = new OffHeapArray(edgeCount, 8);
+    fill(source, false, inOffsets, inSources, inCosts);
+  }
+
+  private long countEdges(AbstractIntNetwork source, boolean forward, OffHeapArray offsets) {
+    Filler counter = new Filler(null, null);
+    for (int node = 0; node < size; node++) {
+      offsets.setLong(node, counter.cursor);
+      if (forward) {
+        source.forEachOut(node, counter);
+      } else {
+        source.forEachIn(node, counter);
+      }
+    }
+    offsets.setLong(size, counter.cursor);
+    return counter.cursor;
+  }
+
+  private void fill(AbstractIntNetwork source,
+                    boolean forward,
+                    OffHeapArray offsets,
+                    OffHeapArray targets,
+                    OffHeapArray costs) {
+    Filler filler = new Filler(targets, costs);
+    for (int node = 0; node < size; node++) {
+      if (forward) {
+        source.forEachOut(node, filler);
+      } else {
+        source.forEachIn(node, filler);
+      }
+      if (filler.cursor != offsets.getLong(node + 1)) {
+        throw new IllegalArgumentException("Source network changed while it was being copied");
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  public long getEdgeCount() {
+    return outTargets.length();
+  }
+
+  @Override
+  protected boolean hasDiscreteCosts() {
+    return discreteCosts;
+  }
+
+  @Override
+  public void forEachOut(int node, IntDoubleConsumer consumer) {
+    for (long i = outOffsets.getLong(node), end = outOffsets.getLong(node + 1); i < end; i++) {
+      consumer.accept(outTargets.getInt(i), outCosts.getDouble(i));
+    }
+  }
+
+  @Override
+  public void forEachIn(int node, IntDoubleConsumer consumer) {
+    for (long i = inOffsets.getLong(node), end = inOffsets.getLong(node + 1); i < end; i++) {
+      consumer.accept(inSources.getInt(i), inCosts.getDouble(i));
+    }
+  }
+
+  private static class Filler implements IntDoubleConsumer {
+
+    private final OffHeapArray targets;
+    private final OffHeapArray costs;
+    private long cursor = 0;
+
+    private Filler(OffHeapArray targets, OffHeapArray costs) {
+      this.targets = targets;
+      this.costs = costs;
+    }
+
+    @Override
+    public void accept(int node, double cost) {
+      if (targets != null) {
+        targets.setInt(cursor, node);
+        costs.setDouble(cursor, cost);
+      }
+      cursor++;
+    }
+  }
+
+}
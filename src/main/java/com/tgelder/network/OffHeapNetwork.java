@@ -0,0 +1,106 @@
+package com.tgelder.network;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Network} lookalike for networks too big to hold as objects. Adjacency and costs are kept off the heap in an
+ * {@link OffHeapIntNetwork} and nodes are translated through a {@link NodeDictionary}, so the heap only holds the
+ * dictionary, which takes no space at all for integer nodes. Edges are created as they are asked for.
+ */
+@AllArgsConstructor
+@Getter
+public class OffHeapNetwork<T> {
+
+  private final OffHeapIntNetwork graph;
+  private final NodeDictionary<T> dictionary;
+
+  public static <T> OffHeapNetwork<T> fromNetwork(Network<T> network) {
+    NodeIndex<T> index = network.getNodeIndex();
+    return new OffHeapNetwork<>(new OffHeapIntNetwork(IntNetwork.fromNetwork(network, index)), index);
+  }
+
+  public static OffHeapNetwork<Integer> ofIntegers(AbstractIntNetwork network) {
+    return new OffHeapNetwork<>(new OffHeapIntNetwork(network), NodeDictionary.integers(network.size()));
+  }
+
+  public Stream<T> getBelow(T node) {
+    return getOut(node).map(Edge::getTo).distinct();
+  }
+
+  public Stream<T> getAbove(T node) {
+    return getIn(node).map(Edge::getFrom).distinct();
+  }
+
+  public Stream<Edge<T>> getOut(T node) {
+    int id = dictionary.getId(node);
+    if (id < 0) {
+      return Stream.empty();
+    }
+    Stream.Builder<Edge<T>> builder = Stream.builder();
+    graph.forEachOut(id, (to, cost) -> builder.add(new Edge<>(node, dictionary.getNode(to), cost)));
+    return builder.build();
+  }
+
+  public Stream<Edge<T>> getIn(T node) {
+    int id = dictionary.getId(node);
+    if (id < 0) {
+      return Stream.empty();
+    }
+    Stream.Builder<Edge<T>> builder = Stream.builder();
+    graph.forEachIn(id, (from, cost) -> builder.add(new Edge<>(dictionary.getNode(from), node, cost)));
+    return builder.build();
+  }
+
+  public Stream<Edge<T>> getEdges(T from, T to) {
+    return getOut(from).filter(e -> e.getTo().equals(to));
+  }
+
+  public Set<T> findClosest(T start, Predicate<T> stoppingCondition) {
+    SearchContext context = SearchContext.acquire();
+    try {
+      return findClosest(start, stoppingCondition, context);
+    } finally {
+      context.release();
+    }
+  }
+
+  public Set<T> findClosest(T start, Predicate<T> stoppingCondition, SearchContext context) {
+    Set<T> out = new HashSet<>();
+    int id = dictionary.getId(start);
+    if (id >= 0) {
+      for (int node : graph.findClosest(id, n -> stoppingCondition.test(dictionary.getNode(n)), context)) {
+        out.add(dictionary.getNode(node));
+      }
+    }
+    return out;
+  }
+
+  public Set<T> getNodes(T start, int maxCost) {
+    SearchContext context = SearchContext.acquire();
+    try {
+      return getNodes(start, maxCost, context);
+    } finally {
+      context.release();
+    }
+  }
+
+  public Set<T> getNodes(T start, int maxCost, SearchContext context) {
+    Set<T> out = new HashSet<>();
+    int id = dictionary.getId(start);
+    if (id >= 0) {
+      for (int node : graph.getNodes(id, maxCost, context)) {
+        out.add(dictionary.getNode(node));
+      }
+    } else if (maxCost > 0) {
+      out.add(start);
+    }
+    return out;
+  }
+
+}
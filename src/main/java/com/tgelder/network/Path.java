@@ -0,0 +1,26 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableList;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class Path<T> {
+
+  private final T start;
+  private final ImmutableList<Edge<T>> edges;
+  private final double cost;
+
+  public T getEnd() {
+    return edges.isEmpty() ? start : edges.get(edges.size() - 1).getTo();
+  }
+
+  public ImmutableList<T> getNodes() {
+    ImmutableList.Builder<T> builder = ImmutableList.builder();
+    builder.add(start);
+    edges.forEach(e -> builder.add(e.getTo()));
+    return builder.build();
+  }
+
+}
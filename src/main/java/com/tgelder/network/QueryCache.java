@@ -0,0 +1,172 @@
+package com.tgelder.network;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of {@link Network#findClosest} and {@link Network#getNodes} for callers that ask the same
+ * questions over and over. Each result weighs one plus the number of nodes in it, and once the total weight passes the
+ * limit the least recently used results are evicted.
+ *
+ * <p>Results are keyed by the network they came from and its cost version. Replacing the network through
+ * {@link #merge} or {@link #setNetwork} drops every cached result, and so does the first lookup after its costs are
+ * changed through {@link Network#updateCosts}. The cache is safe to use from any number of threads, and the sets it returns are
+ * immutable.
+ */
+public class QueryCache<T> {
+
+  private final Cache<Key<T>, ImmutableSet<T>> cache;
+  private final Map<String, NamedPredicate<T>> predicates = new ConcurrentHashMap<>();
+  private final AtomicLong costVersion = new AtomicLong();
+  private volatile Network<T> network;
+
+  public QueryCache(Network<T> network, long maximumWeight) {
+    this.network = network;
+    costVersion.set(network.getCostVersion());
+    this.cache = CacheBuilder.newBuilder()
+            .maximumWeight(maximumWeight)
+            .<Key<T>, ImmutableSet<T>>weigher((key, result) -> result.size() + 1)
+            .recordStats()
+            .build();
+  }
+
+  /**
+   * Registers predicate under name so that findClosest queries using it can be cached. Registering the same predicate
+   * again returns the existing registration, but a name cannot be reused for a different predicate.
+   */
+  public NamedPredicate<T> register(String name, Predicate<T> predicate) {
+    NamedPredicate<T> registered = predicates.computeIfAbsent(name, key -> new NamedPredicate<>(key, predicate));
+    if (registered.getPredicate() != predicate) {
+      throw new IllegalArgumentException("A different predicate is already registered as " + name);
+    }
+    return registered;
+  }
+
+  public Set<T> findClosest(T start, String predicateName) {
+    NamedPredicate<T> predicate = predicates.get(predicateName);
+    if (predicate == null) {
+      throw new IllegalArgumentException("No predicate is registered as " + predicateName);
+    }
+    return findClosest(start, predicate);
+  }
+
+  public Set<T> findClosest(T start, NamedPredicate<T> predicate) {
+    if (predicates.get(predicate.getName()) != predicate) {
+      throw new IllegalArgumentException("Predicate " + predicate.getName() + " is not registered with this cache");
+    }
+    Network<T> network = this.network;
+    return get(new Key<>(network, QueryType.FIND_CLOSEST, start, predicate.getName()),
+            () -> network.findClosest(start, predicate));
+  }
+
+  public Set<T> getNodes(T start, int maxCost) {
+    Network<T> network = this.network;
+    return get(new Key<>(network, QueryType.GET_NODES, start, maxCost), () -> network.getNodes(start, maxCost));
+  }
+
+  /**
+   * Returns the cached result for key, running search to fill it if there is none. Concurrent misses on the same key
+   * wait for one search rather than each running their own. The first key with a newer cost version than any seen
+   * before drops every result, since none of them can be reached again.
+   */
+  private ImmutableSet<T> get(Key<T> key, Supplier<Set<T>> search) {
+    long seen = costVersion.get();
+    if (key.costVersion > seen && costVersion.compareAndSet(seen, key.costVersion)) {
+      cache.invalidateAll();
+    }
+    try {
+      return cache.get(key, () -> ImmutableSet.copyOf(search.get()));
+    } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  public Network<T> getNetwork() {
+    return network;
+  }
+
+  /**
+   * Replaces the network that queries run on and drops every cached result.
+   */
+  public void setNetwork(Network<T> network) {
+    this.network = network;
+    costVersion.set(network.getCostVersion());
+    cache.invalidateAll();
+  }
+
+  /**
+   * Replaces the network with its {@link Network#merge merge} with other and drops every cached result. Returns the
+   * merged network.
+   */
+  public Network<T> merge(Network<T> other) {
+    Network<T> merged = network.merge(other);
+    setNetwork(merged);
+    return merged;
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  private static class Key<T> {
+
+    private final Network<T> network;
+    private final long costVersion;
+    private final QueryType type;
+    private final T start;
+    private final Object argument;
+
+    private Key(Network<T> network, QueryType type, T start, Object argument) {
+      this.network = network;
+      this.costVersion = network.getCostVersion();
+      this.type = type;
+      this.start = start;
+      this.argument = argument;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key<?> key = (Key<?>) o;
+      return network == key.network
+              && costVersion == key.costVersion
+              && type == key.type
+              && start.equals(key.start)
+              && argument.equals(key.argument);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(System.identityHashCode(network), costVersion, type, start, argument);
+    }
+  }
+
+}
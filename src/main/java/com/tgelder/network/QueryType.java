@@ -0,0 +1,12 @@
+package com.tgelder.network;
+
+public enum QueryType {
+
+  FIND_CLOSEST,
+  FIND_K_CLOSEST,
+  GET_NODES,
+  ISOCHRONE,
+  FIND_PATH,
+  DISTANCE
+
+}
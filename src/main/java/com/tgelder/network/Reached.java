@@ -0,0 +1,13 @@
+package com.tgelder.network;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class Reached<T> {
+
+  private final T node;
+  private final double cost;
+
+}
@@ -0,0 +1,249 @@
+package com.tgelder.network;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Working state for searches, reusable across any number of queries by one thread at a time. Per node state is held
+ * in primitive arrays that are invalidated by bumping a version stamp rather than being cleared. The arrays are
+ * allocated by the first search on a network larger than any before. After that, a query on a network whose routing
+ * view is already built allocates nothing beyond its result.
+ *
+ * <p>Queries that are not given a context borrow one per thread.
+ */
+public class SearchContext {
+
+  private static final ThreadLocal<SearchContext> LOCAL = ThreadLocal.withInitial(SearchContext::new);
+
+  private int[] reachedStamps = new int[0];
+  private int[] settledStamps = new int[0];
+  private double[] costs = new double[0];
+  private int[] previous = new int[0];
+  private IntMinHeap heap = new IntMinHeap(0);
+  private IntRadixHeap radixHeap;
+  private IntFrontier open = heap;
+  private int stamp = 0;
+
+  private final Relaxer relaxer = new Relaxer();
+  private AbstractIntNetwork network;
+  private boolean forward;
+
+  private SearchContext partner;
+  private boolean inUse = false;
+
+  private int settledCount;
+  private int relaxedCount;
+  private int peakOpenSize;
+  private boolean drained;
+
+  static SearchContext acquire() {
+    SearchContext context = LOCAL.get();
+    if (context.inUse) {
+      context = new SearchContext();
+    }
+    context.inUse = true;
+    return context;
+  }
+
+  void release() {
+    inUse = false;
+  }
+
+  SearchContext getPartner() {
+    if (partner == null) {
+      partner = new SearchContext();
+    }
+    return partner;
+  }
+
+  void start(AbstractIntNetwork network, int start, boolean forward, IntToDoubleFunction heuristic) {
+    ensureCapacity(network.size());
+    if (heuristic == null && network.hasDiscreteCosts()) {
+      if (radixHeap == null) {
+        radixHeap = new IntRadixHeap();
+      }
+      open = radixHeap;
+    } else {
+      open = heap;
+    }
+    open.clear();
+    if (++stamp == Integer.MAX_VALUE) {
+      Arrays.fill(reachedStamps, 0);
+      Arrays.fill(settledStamps, 0);
+      stamp = 1;
+    }
+
+    this.network = network;
+    this.forward = forward;
+    relaxer.heuristic = heuristic;
+    relaxer.opposite = null;
+    relaxer.allowed = null;
+    settledCount = 0;
+    relaxedCount = 0;
+    peakOpenSize = 1;
+    drained = false;
+
+    reachedStamps[start] = stamp;
+    costs[start] = 0;
+    previous[start] = -1;
+    open.offer(start, heuristic == null ? 0 : heuristic.applyAsDouble(start));
+  }
+
+  void meet(SearchContext opposite) {
+    relaxer.opposite = opposite;
+    opposite.relaxer.opposite = this;
+    relaxer.best = opposite.relaxer.best = Double.POSITIVE_INFINITY;
+    relaxer.meeting = opposite.relaxer.meeting = -1;
+  }
+
+  /**
+   * Stops the search started last from reaching nodes that fail allowed.
+   */
+  void restrict(IntPredicate allowed) {
+    relaxer.allowed = allowed;
+  }
+
+  private void ensureCapacity(int size) {
+    if (reachedStamps.length < size) {
+      reachedStamps = new int[size];
+      settledStamps = new int[size];
+      costs = new double[size];
+      previous = new int[size];
+      heap = new IntMinHeap(size);
+      stamp = 0;
+    }
+  }
+
+  /**
+   * Settles the cheapest node on the frontier, relaxes its edges and returns it, or returns -1 when no nodes are left.
+   */
+  int next() {
+    if (isExhausted()) {
+      drained = true;
+      return -1;
+    }
+    peakOpenSize = Math.max(peakOpenSize, open.size());
+    int node = open.poll();
+    settledStamps[node] = stamp;
+    settledCount++;
+
+    relaxer.focus = node;
+    relaxer.focusCost = costs[node];
+    if (forward) {
+      network.forEachOut(node, relaxer);
+    } else {
+      network.forEachIn(node, relaxer);
+    }
+    return node;
+  }
+
+  boolean isExhausted() {
+    skipSettled();
+    return open.isEmpty();
+  }
+
+  double peekKey() {
+    return isExhausted() ? Double.POSITIVE_INFINITY : open.peekKey();
+  }
+
+  /**
+   * Drops entries for nodes that were already settled, which a radix heap leaves behind when a node's cost falls.
+   */
+  private void skipSettled() {
+    while (!open.isEmpty() && settledStamps[open.peek()] == stamp) {
+      open.poll();
+    }
+  }
+
+  boolean isReached(int node) {
+    return node < reachedStamps.length && reachedStamps[node] == stamp;
+  }
+
+  boolean isSettled(int node) {
+    return node < settledStamps.length && settledStamps[node] == stamp;
+  }
+
+  double getCost(int node) {
+    return isReached(node) ? costs[node] : Double.POSITIVE_INFINITY;
+  }
+
+  int getPrevious(int node) {
+    return previous[node];
+  }
+
+  double getBest() {
+    return relaxer.best;
+  }
+
+  int getMeeting() {
+    return relaxer.meeting;
+  }
+
+  /**
+   * The number of nodes settled by the search started last.
+   */
+  int getSettledCount() {
+    return settledCount;
+  }
+
+  /**
+   * The number of edges the search started last has relaxed, counting those to settled or disallowed nodes.
+   */
+  int getRelaxedCount() {
+    return relaxedCount;
+  }
+
+  /**
+   * The most entries the frontier of the search started last has held when a node was settled.
+   */
+  int getPeakOpenSize() {
+    return peakOpenSize;
+  }
+
+  /**
+   * Whether {@link #next} has run out of nodes since the search was started, as opposed to the search having been
+   * stopped early by its caller.
+   */
+  boolean isDrained() {
+    return drained;
+  }
+
+  private class Relaxer implements IntDoubleConsumer {
+
+    private int focus;
+    private double focusCost;
+    private IntToDoubleFunction heuristic;
+    private IntPredicate allowed;
+
+    private SearchContext opposite;
+    private double best;
+    private int meeting;
+
+    @Override
+    public void accept(int node, double cost) {
+      relaxedCount++;
+      if (settledStamps[node] == stamp || (allowed != null && !allowed.test(node))) {
+        return;
+      }
+      double nodeCost = focusCost + cost;
+      if (reachedStamps[node] != stamp || nodeCost < costs[node]) {
+        reachedStamps[node] = stamp;
+        costs[node] = nodeCost;
+        previous[node] = focus;
+        open.offer(node, heuristic == null ? nodeCost : nodeCost + heuristic.applyAsDouble(node));
+
+        if (opposite != null && opposite.isReached(node)) {
+          double total = nodeCost + opposite.costs[node];
+          if (total < opposite.relaxer.best) {
+            best = total;
+            meeting = node;
+            opposite.relaxer.best = total;
+            opposite.relaxer.meeting = node;
+          }
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,12 @@
+package com.tgelder.network;
+
+/**
+ * Receives the statistics of each query run on a {@link Network} it is attached to with
+ * {@link Network#setSearchListener}. It is called on the querying thread, so it should be quick and thread safe.
+ */
+@FunctionalInterface
+public interface SearchListener {
+
+  void onSearch(SearchStats stats);
+
+}
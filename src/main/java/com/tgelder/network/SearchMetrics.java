@@ -0,0 +1,99 @@
+package com.tgelder.network;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link SearchListener} that keeps running totals and a latency histogram for each type of query, for export to a
+ * metrics system. Latencies are counted in power of two buckets: bucket i holds queries that took less than 2^i
+ * microseconds and at least half that, and the last bucket holds everything slower.
+ */
+public class SearchMetrics implements SearchListener {
+
+  public static final int LATENCY_BUCKETS = 32;
+
+  private final Map<QueryType, Totals> totals = new EnumMap<>(QueryType.class);
+
+  public SearchMetrics() {
+    for (QueryType type : QueryType.values()) {
+      totals.put(type, new Totals());
+    }
+  }
+
+  @Override
+  public void onSearch(SearchStats stats) {
+    Totals typeTotals = totals.get(stats.getQueryType());
+    typeTotals.queries.increment();
+    typeTotals.settledNodes.add(stats.getSettledNodes());
+    typeTotals.relaxedEdges.add(stats.getRelaxedEdges());
+    typeTotals.terminations[stats.getTermination().ordinal()].increment();
+    long micros = stats.getNanos() / 1000;
+    int bucket = Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    typeTotals.latencies[bucket].increment();
+  }
+
+  public long getQueryCount(QueryType type) {
+    return totals.get(type).queries.sum();
+  }
+
+  public long getSettledNodes(QueryType type) {
+    return totals.get(type).settledNodes.sum();
+  }
+
+  public long getRelaxedEdges(QueryType type) {
+    return totals.get(type).relaxedEdges.sum();
+  }
+
+  public long getTerminationCount(QueryType type, Termination termination) {
+    return totals.get(type).terminations[termination.ordinal()].sum();
+  }
+
+  public long[] getLatencyHistogram(QueryType type) {
+    LongAdder[] latencies = totals.get(type).latencies;
+    long[] out = new long[LATENCY_BUCKETS];
+    for (int i = 0; i < LATENCY_BUCKETS; i++) {
+      out[i] = latencies[i].sum();
+    }
+    return out;
+  }
+
+  /**
+   * Returns an upper bound in microseconds on the given percentile of latency, from the histogram, or 0 if there have
+   * been no queries of the type.
+   */
+  public long getLatencyPercentileMicros(QueryType type, double percentile) {
+    long[] histogram = getLatencyHistogram(type);
+    long total = 0;
+    for (long count : histogram) {
+      total += count;
+    }
+    long rank = (long) Math.ceil(total * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < LATENCY_BUCKETS; i++) {
+      seen += histogram[i];
+      if (seen >= rank && seen > 0) {
+        return 1L << i;
+      }
+    }
+    return 0;
+  }
+
+  private static class Totals {
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder settledNodes = new LongAdder();
+    private final LongAdder relaxedEdges = new LongAdder();
+    private final LongAdder[] terminations = adders(Termination.values().length);
+    private final LongAdder[] latencies = adders(LATENCY_BUCKETS);
+
+    private static LongAdder[] adders(int count) {
+      LongAdder[] adders = new LongAdder[count];
+      for (int i = 0; i < count; i++) {
+        adders[i] = new LongAdder();
+      }
+      return adders;
+    }
+  }
+
+}
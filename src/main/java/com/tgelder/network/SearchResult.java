@@ -0,0 +1,100 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The nodes found by a search, in order of cost, with the route to each kept as an array of node ids so that paths
+ * can be built without searching again.
+ */
+public class SearchResult<T> {
+
+  private final T start;
+  private final int[] matches;
+  private final double[] costs;
+  private final int[][] routes;
+  private final NodeDictionary<T> dictionary;
+  private final EdgeLookup<T> edges;
+
+  private SearchResult(T start,
+                       int[] matches,
+                       double[] costs,
+                       int[][] routes,
+                       NodeDictionary<T> dictionary,
+                       EdgeLookup<T> edges) {
+    this.start = start;
+    this.matches = matches;
+    this.costs = costs;
+    this.routes = routes;
+    this.dictionary = dictionary;
+    this.edges = edges;
+  }
+
+  static <T> SearchResult<T> empty(T start) {
+    return new SearchResult<>(start, new int[0], new double[0], new int[0][], null, null);
+  }
+
+  /**
+   * Copies the costs and routes to the matches out of a context whose search has just found them.
+   */
+  static <T> SearchResult<T> of(T start,
+                                int[] matches,
+                                SearchContext context,
+                                NodeDictionary<T> dictionary,
+                                EdgeLookup<T> edges) {
+    double[] costs = new double[matches.length];
+    int[][] routes = new int[matches.length][];
+    for (int i = 0; i < matches.length; i++) {
+      costs[i] = context.getCost(matches[i]);
+      int length = 0;
+      for (int node = matches[i]; node >= 0; node = context.getPrevious(node)) {
+        length++;
+      }
+      int[] route = new int[length];
+      for (int node = matches[i]; node >= 0; node = context.getPrevious(node)) {
+        route[--length] = node;
+      }
+      routes[i] = route;
+    }
+    return new SearchResult<>(start, matches, costs, routes, dictionary, edges);
+  }
+
+  public T getStart() {
+    return start;
+  }
+
+  public int size() {
+    return matches.length;
+  }
+
+  public T getNode(int i) {
+    return dictionary.getNode(matches[i]);
+  }
+
+  public double getCost(int i) {
+    return costs[i];
+  }
+
+  public ImmutableList<T> getNodes() {
+    ImmutableList.Builder<T> builder = ImmutableList.builder();
+    for (int i = 0; i < matches.length; i++) {
+      builder.add(getNode(i));
+    }
+    return builder.build();
+  }
+
+  public Path<T> getPath(int i) {
+    int[] route = routes[i];
+    ImmutableList.Builder<Edge<T>> builder = ImmutableList.builder();
+    for (int j = 1; j < route.length; j++) {
+      builder.add(edges.getEdge(route[j - 1], route[j]));
+    }
+    return new Path<>(start, builder.build(), costs[i]);
+  }
+
+  interface EdgeLookup<T> {
+
+    Edge<T> getEdge(int from, int to);
+
+  }
+
+}
@@ -0,0 +1,23 @@
+package com.tgelder.network;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * What one query did. Bidirectional queries report the totals of both directions, and the larger of their peak open
+ * set sizes.
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public class SearchStats {
+
+  private final QueryType queryType;
+  private final long settledNodes;
+  private final long relaxedEdges;
+  private final int peakOpenSize;
+  private final long nanos;
+  private final Termination termination;
+
+}
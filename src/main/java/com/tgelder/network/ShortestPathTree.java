@@ -0,0 +1,174 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.*;
+
+/**
+ * The cheapest paths from one source to every node of a {@link Network}, kept up to date as the network's edge costs
+ * are changed with {@link Network#updateCost}. Each batch of changes is repaired incrementally, in the style of
+ * Ramalingam and Reps: only the subtrees hanging off edges that got more expensive are cleared, and a Dijkstra search
+ * seeded from their boundary and from edges that got cheaper fixes up just the nodes whose cost changed.
+ *
+ * <p>Trees stay registered with their network until closed.
+ */
+public class ShortestPathTree<T> implements AutoCloseable {
+
+  private final Network<T> network;
+  private final NodeIndex<T> index;
+  private final IntNetwork routing;
+  private final T source;
+
+  private final double[] costs;
+  private final int[] parents;
+
+  private final int[] affectedStamps;
+  private int stamp = 0;
+  private final IntMinHeap open;
+
+  ShortestPathTree(Network<T> network, T source) {
+    this.network = network;
+    this.index = network.getNodeIndex();
+    this.routing = network.getRouting();
+    this.source = source;
+
+    int id = index.getId(source);
+    if (id < 0) {
+      throw new IllegalArgumentException("Source " + source + " is not in the network");
+    }
+
+    int size = routing.size();
+    costs = new double[size];
+    parents = new int[size];
+    affectedStamps = new int[size];
+    open = new IntMinHeap(size);
+    Arrays.fill(costs, Double.POSITIVE_INFINITY);
+    Arrays.fill(parents, -1);
+
+    SearchContext context = SearchContext.acquire();
+    try {
+      context.start(routing, id, true, null);
+      for (int node = context.next(); node >= 0; node = context.next()) {
+        costs[node] = context.getCost(node);
+        parents[node] = context.getPrevious(node);
+      }
+    } finally {
+      context.release();
+    }
+  }
+
+  public T getSource() {
+    return source;
+  }
+
+  public OptionalDouble getCost(T node) {
+    int id = index.getId(node);
+    if (id < 0 || costs[id] == Double.POSITIVE_INFINITY) {
+      return OptionalDouble.empty();
+    }
+    return OptionalDouble.of(costs[id]);
+  }
+
+  public Optional<Path<T>> getPath(T node) {
+    int id = index.getId(node);
+    if (id < 0 || costs[id] == Double.POSITIVE_INFINITY) {
+      return Optional.empty();
+    }
+    LinkedList<Edge<T>> edges = new LinkedList<>();
+    for (int child = id; parents[child] >= 0; child = parents[child]) {
+      edges.addFirst(network.getCheapestEdge(parents[child], child));
+    }
+    return Optional.of(new Path<>(source, ImmutableList.copyOf(edges), costs[id]));
+  }
+
+  /**
+   * Returns the nodes whose cost from the source is below maxCost, as {@link Network#getNodes} would.
+   */
+  public Set<T> getNodes(int maxCost) {
+    Set<T> out = new HashSet<>();
+    for (int node = 0; node < costs.length; node++) {
+      if (costs[node] < maxCost) {
+        out.add(index.getNode(node));
+      }
+    }
+    return out;
+  }
+
+  @Override
+  public void close() {
+    network.unregister(this);
+  }
+
+  void repair(List<CostChange> changes) {
+    if (++stamp == Integer.MAX_VALUE) {
+      Arrays.fill(affectedStamps, 0);
+      stamp = 1;
+    }
+    open.clear();
+
+    List<Integer> affected = new ArrayList<>();
+    for (CostChange change : changes) {
+      int from = change.getFrom();
+      int to = change.getTo();
+      if (change.getNewCost() > change.getOldCost()
+              && parents[to] == from
+              && costs[from] + change.getOldCost() == costs[to]
+              && affectedStamps[to] != stamp) {
+        collectSubtree(to, affected);
+      }
+    }
+
+    for (int node : affected) {
+      costs[node] = Double.POSITIVE_INFINITY;
+      parents[node] = -1;
+    }
+    for (int node : affected) {
+      routing.forEachIn(node, (from, cost) -> {
+        if (affectedStamps[from] != stamp && costs[from] + cost < costs[node]) {
+          costs[node] = costs[from] + cost;
+          parents[node] = from;
+        }
+      });
+      if (costs[node] < Double.POSITIVE_INFINITY) {
+        open.offer(node, costs[node]);
+      }
+    }
+
+    for (CostChange change : changes) {
+      if (change.getNewCost() < change.getOldCost()) {
+        relax(change.getFrom(), change.getTo(), change.getNewCost());
+      }
+    }
+
+    while (!open.isEmpty()) {
+      int node = open.poll();
+      routing.forEachOut(node, (to, cost) -> relax(node, to, cost));
+    }
+  }
+
+  private void collectSubtree(int root, List<Integer> affected) {
+    Deque<Integer> stack = new ArrayDeque<>();
+    affectedStamps[root] = stamp;
+    stack.push(root);
+    while (!stack.isEmpty()) {
+      int node = stack.pop();
+      affected.add(node);
+      routing.forEachOut(node, (child, cost) -> {
+        if (parents[child] == node && affectedStamps[child] != stamp) {
+          affectedStamps[child] = stamp;
+          stack.push(child);
+        }
+      });
+    }
+  }
+
+  private void relax(int from, int to, double cost) {
+    double candidate = costs[from] + cost;
+    if (candidate < costs[to]) {
+      costs[to] = candidate;
+      parents[to] = from;
+      open.offer(to, candidate);
+    }
+  }
+
+}
@@ -0,0 +1,90 @@
+package com.tgelder.network;
+
+import java.util.BitSet;
+import java.util.function.Predicate;
+
+/**
+ * A set of target nodes for {@link ComponentIndex#findClosest}, with the number of targets in each component and
+ * whether any target can be reached from it. Targets can be added and removed later, but not while the class is being
+ * queried.
+ */
+public class TargetClass<T> {
+
+  private final ComponentIndex<T> componentIndex;
+  private final BitSet targets = new BitSet();
+  private final int[] targetCounts;
+  private final boolean[] reachesTarget;
+  private volatile boolean stale = true;
+
+  TargetClass(ComponentIndex<T> componentIndex, Predicate<T> predicate) {
+    this.componentIndex = componentIndex;
+    targetCounts = new int[componentIndex.getComponentCount()];
+    reachesTarget = new boolean[componentIndex.getComponentCount()];
+    NodeIndex<T> index = componentIndex.getIndex();
+    for (int node = 0; node < index.size(); node++) {
+      if (predicate.test(index.getNode(node))) {
+        targets.set(node);
+        targetCounts[componentIndex.componentOf(node)]++;
+      }
+    }
+  }
+
+  ComponentIndex<T> getComponentIndex() {
+    return componentIndex;
+  }
+
+  public boolean add(T node) {
+    int id = componentIndex.getIndex().getId(node);
+    if (id < 0 || targets.get(id)) {
+      return false;
+    }
+    targets.set(id);
+    targetCounts[componentIndex.componentOf(id)]++;
+    stale = true;
+    return true;
+  }
+
+  public boolean remove(T node) {
+    int id = componentIndex.getIndex().getId(node);
+    if (id < 0 || !targets.get(id)) {
+      return false;
+    }
+    targets.clear(id);
+    targetCounts[componentIndex.componentOf(id)]--;
+    stale = true;
+    return true;
+  }
+
+  public int getTargetCount(int component) {
+    return targetCounts[component];
+  }
+
+  boolean isTarget(int node) {
+    return targets.get(node);
+  }
+
+  /**
+   * Whether a target lies in component or in a component reachable from it. Computed for all components at once, sinks
+   * first, after the targets change.
+   */
+  boolean canReachTarget(int component) {
+    if (stale) {
+      refresh();
+    }
+    return reachesTarget[component];
+  }
+
+  private synchronized void refresh() {
+    if (stale) {
+      for (int c = 0; c < reachesTarget.length; c++) {
+        boolean reaches = targetCounts[c] > 0;
+        for (int i = componentIndex.getSuccessorStart(c); !reaches && i < componentIndex.getSuccessorEnd(c); i++) {
+          reaches = reachesTarget[componentIndex.getSuccessor(i)];
+        }
+        reachesTarget[c] = reaches;
+      }
+      stale = false;
+    }
+  }
+
+}
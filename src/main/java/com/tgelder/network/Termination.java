@@ -0,0 +1,28 @@
+package com.tgelder.network;
+
+/**
+ * Why a search stopped.
+ */
+public enum Termination {
+
+  /**
+   * The matches for a findClosest style query were all settled.
+   */
+  MATCH_FOUND,
+
+  /**
+   * The goal of a path or distance query was reached.
+   */
+  GOAL_REACHED,
+
+  /**
+   * The next node would have cost more than the query's limit.
+   */
+  COST_LIMIT,
+
+  /**
+   * Every node reachable from the start was settled.
+   */
+  EXHAUSTED
+
+}
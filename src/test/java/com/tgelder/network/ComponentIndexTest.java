@@ -0,0 +1,76 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ComponentIndexTest {
+
+  // Two cycles, 0-1-2 and 3-4, joined by 2 -> 3, plus an island 5-6 and a lone node 7.
+  private final Network<Integer> network = new Network<>(TestUtils.generateNodes(8), ImmutableSet.of(
+          new Edge<>(0, 1, 1), new Edge<>(1, 2, 1), new Edge<>(2, 0, 1),
+          new Edge<>(2, 3, 1),
+          new Edge<>(3, 4, 1), new Edge<>(4, 3, 1),
+          new Edge<>(5, 6, 1), new Edge<>(6, 5, 1)));
+
+  @Test
+  public void shouldFindComponents() {
+    ComponentIndex<Integer> components = network.getComponentIndex();
+
+    assertThat(components.getComponentCount()).isEqualTo(4);
+    assertThat(components.isStronglyConnected(0, 2)).isTrue();
+    assertThat(components.isStronglyConnected(3, 4)).isTrue();
+    assertThat(components.isStronglyConnected(2, 3)).isFalse();
+    assertThat(components.getSuccessors(components.getComponent(0))).containsExactly(components.getComponent(3));
+    assertThat(components.getComponent(0)).isGreaterThan(components.getComponent(3));
+    assertThat(components.getSuccessors(components.getComponent(5))).isEmpty();
+    assertThat(components.getComponent(99)).isEqualTo(-1);
+  }
+
+  @Test
+  public void shouldRespectTargetReachability() {
+    ComponentIndex<Integer> components = network.getComponentIndex();
+    TargetClass<Integer> targets = components.createTargetClass(n -> n == 6 || n == 1);
+
+    assertThat(components.findClosest(0, targets)).containsExactly(1);
+    assertThat(components.findClosest(3, targets)).isEmpty();
+    assertThat(components.findClosest(5, targets)).containsExactly(6);
+    assertThat(components.findClosest(7, targets)).isEmpty();
+    assertThat(targets.getTargetCount(components.getComponent(0))).isEqualTo(1);
+
+    targets.add(4);
+    assertThat(components.findClosest(3, targets)).containsExactly(4);
+
+    targets.remove(1);
+    assertThat(components.findClosest(0, targets)).containsExactly(4);
+  }
+
+  @Test
+  public void shouldMatchFindClosestOnRandomNetworks() {
+    Random random = new Random(1);
+    ImmutableSet.Builder<Edge<Integer>> edges = ImmutableSet.builder();
+    for (int i = 0; i < 400; i++) {
+      edges.add(new Edge<>(random.nextInt(300), random.nextInt(300), 1 + random.nextInt(10)));
+    }
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(300), edges.build());
+    ComponentIndex<Integer> components = network.getComponentIndex();
+    TargetClass<Integer> targets = components.createTargetClass(n -> n % 37 == 0);
+
+    for (int start = 0; start < 300; start++) {
+      assertThat(components.findClosest(start, targets)).isEqualTo(network.findClosest(start, n -> n % 37 == 0));
+    }
+  }
+
+  @Test
+  public void shouldHandleLongChainsWithoutRecursion() {
+    int[] neighbourDXs = {1};
+    int[] neighbourDYs = {0};
+    Network<Integer> chain = Network.createGridNetwork(100000, 1, neighbourDXs, neighbourDYs);
+
+    assertThat(chain.getComponentIndex().getComponentCount()).isEqualTo(100000);
+  }
+
+}
@@ -0,0 +1,96 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.OptionalDouble;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ContractionHierarchyTest {
+
+  private static void assertMatches(Network<Integer> network, ContractionHierarchy<Integer> hierarchy) {
+    for (int start = 0; start < network.getNodes().size(); start += 3) {
+      for (int goal = 0; goal < network.getNodes().size(); goal += 5) {
+        OptionalDouble expected = network.distance(start, goal);
+        OptionalDouble actual = hierarchy.distance(start, goal);
+        assertThat(actual.isPresent()).isEqualTo(expected.isPresent());
+        if (expected.isPresent()) {
+          assertThat(actual.getAsDouble()).isCloseTo(expected.getAsDouble(), TestUtils.PRECISION);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMatchesDijkstraOnRandomNetwork() {
+    Network<Integer> network = TestUtils.randomNetwork(new Random(1), 200, 600, 20);
+
+    assertMatches(network, ContractionHierarchy.build(network));
+  }
+
+  @Test
+  public void testMatchesDijkstraOnGrid() {
+    int[] neighbourDXs = {-1, 0, 1, 0, -1, 1, 1, -1};
+    int[] neighbourDYs = {0, -1, 0, 1, -1, -1, 1, 1};
+    Network<Integer> network = Network.createGridNetwork(20, 20, neighbourDXs, neighbourDYs);
+
+    ContractionHierarchy<Integer> hierarchy = ContractionHierarchy.build(network);
+
+    assertMatches(network, hierarchy);
+    assertThat(hierarchy.distance(0, 399).getAsDouble()).isCloseTo(19 * Math.sqrt(2), TestUtils.PRECISION);
+  }
+
+  @Test
+  public void testPathsAreUnpacked() {
+    Network<Integer> network = TestUtils.randomNetwork(new Random(2), 100, 400, 20);
+    ContractionHierarchy<Integer> hierarchy = ContractionHierarchy.build(network);
+
+    for (int goal = 1; goal < 100; goal++) {
+      int end = goal;
+      hierarchy.findPath(0, goal).ifPresent(path -> {
+        assertThat(path.getStart()).isEqualTo(0);
+        assertThat(path.getEnd()).isEqualTo(end);
+        for (int i = 1; i < path.getEdges().size(); i++) {
+          assertThat(path.getEdges().get(i).getFrom()).isEqualTo(path.getEdges().get(i - 1).getTo());
+        }
+        for (Edge<Integer> edge : path.getEdges()) {
+          assertThat(network.getEdges(edge.getFrom(), edge.getTo()).mapToDouble(Edge::getCost).min().getAsDouble())
+                  .isEqualTo(edge.getCost());
+        }
+        assertThat(path.getEdges().stream().mapToDouble(Edge::getCost).sum())
+                .isCloseTo(path.getCost(), TestUtils.PRECISION);
+      });
+    }
+  }
+
+  @Test
+  public void testUnreachableAndUnknownNodes() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(3),
+            ImmutableSet.of(new Edge<>(0, 1, 1), new Edge<>(1, 0, 1)));
+    ContractionHierarchy<Integer> hierarchy = ContractionHierarchy.build(network);
+
+    assertThat(hierarchy.distance(0, 2).isPresent()).isFalse();
+    assertThat(hierarchy.distance(2, 2).getAsDouble()).isEqualTo(0);
+    assertThat(hierarchy.findPath(1, 1).get().getEdges()).isEmpty();
+    assertThat(hierarchy.distance(5, 0).isPresent()).isFalse();
+  }
+
+  @Test
+  public void testSerialisation() throws IOException {
+    Network<Integer> network = TestUtils.randomNetwork(new Random(3), 100, 300, 20);
+    ContractionHierarchy<Integer> hierarchy = ContractionHierarchy.build(network);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    hierarchy.writeTo(bytes);
+    ContractionHierarchy<Integer> copy = ContractionHierarchy.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+
+    assertThat(copy.getShortcutCount()).isEqualTo(hierarchy.getShortcutCount());
+    assertMatches(network, copy);
+  }
+
+}
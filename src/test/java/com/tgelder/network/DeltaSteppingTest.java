@@ -0,0 +1,65 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeltaSteppingTest {
+
+  @Test
+  public void shouldMatchDijkstraOnRandomNetwork() {
+    Random random = new Random(1);
+    int size = 2000;
+    int[] froms = new int[8000];
+    int[] tos = new int[8000];
+    double[] costs = new double[8000];
+    for (int i = 0; i < froms.length; i++) {
+      froms[i] = random.nextInt(size);
+      tos[i] = random.nextInt(size);
+      costs[i] = random.nextDouble() * 20;
+    }
+    IntNetwork network = new IntNetwork(size, froms, tos, costs);
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (double delta : new double[]{0.5, 5, 100}) {
+        DeltaStepping engine = new DeltaStepping(delta, pool);
+        for (int start = 0; start < size; start += 97) {
+          double[] expected = network.getCostsFrom(start);
+          double[] actual = engine.getCostsFrom(network, start);
+          for (int node = 0; node < size; node++) {
+            assertThat(actual[node]).isCloseTo(expected[node], TestUtils.PRECISION);
+          }
+          assertThat(network.getNodes(start, 30, engine)).containsExactlyInAnyOrder(network.getNodes(start, 30));
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldMatchGetNodesOnGrid() {
+    int[] neighbourDXs = {-1, 0, 1, 0, -1, 1, 1, -1};
+    int[] neighbourDYs = {0, -1, 0, 1, -1, -1, 1, 1};
+    Network<Integer> network = Network.createGridNetwork(100, 100, neighbourDXs, neighbourDYs);
+
+    assertThat(network.getNodes(5050, 40, new DeltaStepping(1))).isEqualTo(network.getNodes(5050, 40));
+    assertThat(network.getNodes(0, 1000, new DeltaStepping(2))).hasSize(10000);
+  }
+
+  @Test
+  public void shouldHandleUnknownStartsAndEmptyRanges() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(2), ImmutableSet.of(new Edge<>(0, 1, 1)));
+    DeltaStepping engine = new DeltaStepping(1);
+
+    assertThat(network.getNodes(7, 1, engine)).containsExactly(7);
+    assertThat(network.getNodes(0, 0, engine)).isEmpty();
+    assertThat(network.getNodes(0, 1, engine)).containsExactly(0);
+  }
+
+}
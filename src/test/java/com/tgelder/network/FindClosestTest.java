@@ -3,7 +3,13 @@ package com.tgelder.network;
 import com.google.common.collect.ImmutableSet;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -139,4 +145,36 @@ public class FindClosestTest {
     assertThat(network.findClosest(1, predicate)).containsExactlyInAnyOrder(0, 2);
   }
 
+  @Test
+  public void shouldFindClosestAcrossLargeGrid() {
+    int[] neighbourDXs = {-1, 0, 1, 0};
+    int[] neighbourDYs = {0, -1, 0, 1};
+    network = Network.createGridNetwork(256, 256, neighbourDXs, neighbourDYs);
+
+    assertThat(network.findClosest(0, n -> n.equals(65535))).containsExactly(65535);
+    assertThat(network.findClosest(0, n -> n == 255 || n == 65280)).containsExactlyInAnyOrder(255, 65280);
+  }
+
+  @Test
+  public void shouldKeepInputOrderInFindClosestAll() {
+    int[] neighbourDXs = {-1, 0, 1, 0};
+    int[] neighbourDYs = {0, -1, 0, 1};
+    network = Network.createGridNetwork(32, 32, neighbourDXs, neighbourDYs);
+    List<Integer> starts = IntStream.range(0, 1024).boxed().collect(Collectors.toList());
+    Collections.reverse(starts);
+
+    List<Set<Integer>> results;
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      results = network.findClosestAll(starts, n -> n % 100 == 0, pool);
+    } finally {
+      pool.shutdown();
+    }
+
+    assertThat(results).hasSize(starts.size());
+    for (int i = 0; i < starts.size(); i++) {
+      assertThat(results.get(i)).isEqualTo(network.findClosest(starts.get(i), n -> n % 100 == 0));
+    }
+  }
+
 }
@@ -0,0 +1,72 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FindKClosestTest {
+
+  private final Network<Integer> network = new Network<>(TestUtils.generateNodes(6), ImmutableSet.of(
+          new Edge<>(0, 1, 1),
+          new Edge<>(0, 2, 1),
+          new Edge<>(1, 3, 2),
+          new Edge<>(1, 3, 5),
+          new Edge<>(2, 4, 4),
+          new Edge<>(3, 5, 1)));
+
+  @Test
+  public void shouldReturnKClosestInCostOrder() {
+    SearchResult<Integer> result = network.findKClosest(0, n -> n >= 3, 2);
+
+    assertThat(result.getNodes()).containsExactly(3, 5);
+    assertThat(result.getCost(0)).isEqualTo(3);
+    assertThat(result.getCost(1)).isEqualTo(4);
+  }
+
+  @Test
+  public void shouldKeepExpandingPastTies() {
+    SearchResult<Integer> result = network.findKClosest(0, n -> true, 10);
+
+    assertThat(result.getNodes()).hasSize(5);
+    assertThat(result.getNodes().subList(0, 2)).containsExactlyInAnyOrder(1, 2);
+    assertThat(result.getNodes().subList(2, 5)).containsExactly(3, 5, 4);
+  }
+
+  @Test
+  public void shouldRebuildPathsWithoutSearchingAgain() {
+    SearchResult<Integer> result = network.findKClosest(0, n -> n == 5, 1);
+    Path<Integer> path = result.getPath(0);
+
+    assertThat(path.getNodes()).containsExactly(0, 1, 3, 5);
+    assertThat(path.getCost()).isEqualTo(4);
+    assertThat(path.getEdges()).allMatch(network.getEdges()::contains);
+    assertThat(path.getEdges().get(1).getCost()).isEqualTo(2);
+  }
+
+  @Test
+  public void findClosestPathsShouldMatchFindClosest() {
+    SearchResult<Integer> result = network.findClosestPaths(0, n -> n == 1 || n == 2 || n == 5);
+
+    assertThat(result.getNodes()).containsExactlyInAnyOrder(1, 2);
+    assertThat(result.getPath(0).getEdges()).hasSize(1);
+  }
+
+  @Test
+  public void shouldWorkOnIntNetworks() {
+    GridNetwork grid = new GridNetwork(10, 10, new int[]{1, 0, -1, 0}, new int[]{0, 1, 0, -1});
+
+    SearchResult<Integer> result = grid.findKClosest(0, n -> n % 10 == 9, 3);
+
+    assertThat(result.getNodes()).containsExactly(9, 19, 29);
+    assertThat(result.getPath(2).getEdges()).hasSize(11);
+    assertThat(result.getPath(2).getEnd()).isEqualTo(29);
+    assertThat(grid.findClosestPaths(0, n -> n == 11).getPath(0).getCost()).isEqualTo(2);
+  }
+
+  @Test
+  public void unknownStartGivesEmptyResult() {
+    assertThat(network.findKClosest(42, n -> true, 3).size()).isEqualTo(0);
+  }
+
+}
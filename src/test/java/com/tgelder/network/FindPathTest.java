@@ -0,0 +1,165 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FindPathTest {
+
+  private static final int[] FOUR_DXS = {-1, 0, 1, 0};
+  private static final int[] FOUR_DYS = {0, -1, 0, 1};
+  private static final int[] EIGHT_DXS = {-1, 0, 1, 0, -1, 1, 1, -1};
+  private static final int[] EIGHT_DYS = {0, -1, 0, 1, -1, -1, 1, 1};
+  private static final int[] KNIGHT_DXS = {1, 2, 2, 1, -1, -2, -2, -1};
+  private static final int[] KNIGHT_DYS = {2, 1, -1, -2, -2, -1, 1, 2};
+
+  @Test
+  public void shouldFollowCheapestEdges() {
+    ImmutableSet<Integer> nodes = TestUtils.generateNodes(4);
+    Edge<Integer> edge01 = new Edge<>(0, 1, 1);
+    Edge<Integer> edge13 = new Edge<>(1, 3, 1);
+    Edge<Integer> edge03 = new Edge<>(0, 3, 3);
+    Edge<Integer> edge02 = new Edge<>(0, 2, 1);
+    Network<Integer> network = new Network<>(nodes, ImmutableSet.of(edge01, edge13, edge03, edge02));
+
+    Path<Integer> path = network.findPath(0, 3, Heuristic.none()).get();
+
+    assertThat(path.getEdges()).containsExactly(edge01, edge13);
+    assertThat(path.getNodes()).containsExactly(0, 1, 3);
+    assertThat(path.getCost()).isEqualTo(2);
+    assertThat(path.getEnd()).isEqualTo(3);
+  }
+
+  @Test
+  public void pathToStartIsEmpty() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(2),
+            ImmutableSet.of(new Edge<>(0, 1, 1), new Edge<>(1, 0, 1)));
+
+    Path<Integer> path = network.findPath(0, 0, Heuristic.none()).get();
+
+    assertThat(path.getEdges()).isEmpty();
+    assertThat(path.getNodes()).containsExactly(0);
+    assertThat(path.getCost()).isEqualTo(0);
+  }
+
+  @Test
+  public void unreachableGoal() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(3),
+            ImmutableSet.of(new Edge<>(1, 0, 1), new Edge<>(0, 2, 1)));
+
+    assertThat(network.findPath(0, 1, Heuristic.none())).isEqualTo(Optional.empty());
+    assertThat(network.distance(0, 1, Heuristic.none()).isPresent()).isFalse();
+  }
+
+  @Test
+  public void testFourNeighbourGrid() {
+    Network<Integer> network = Network.createGridNetwork(32, 32, FOUR_DXS, FOUR_DYS);
+    Heuristic<Integer> heuristic = Heuristic.forGrid(32, FOUR_DXS, FOUR_DYS);
+
+    Path<Integer> path = network.findPath(0, 1023, heuristic).get();
+
+    assertThat(path.getCost()).isEqualTo(62);
+    assertThat(path.getEdges()).hasSize(62);
+    assertThat(path.getEnd()).isEqualTo(1023);
+    assertThat(network.distance(33, 67, heuristic).getAsDouble()).isEqualTo(3);
+  }
+
+  @Test
+  public void testEightNeighbourGrid() {
+    Network<Integer> network = Network.createGridNetwork(32, 32, EIGHT_DXS, EIGHT_DYS);
+    Heuristic<Integer> heuristic = Heuristic.forGrid(32, EIGHT_DXS, EIGHT_DYS);
+
+    assertThat(network.distance(0, 1023, heuristic).getAsDouble())
+            .isCloseTo(31 * Math.sqrt(2), TestUtils.PRECISION);
+    assertThat(network.distance(0, 31 + 32 * 10, heuristic).getAsDouble())
+            .isCloseTo(21 + 10 * Math.sqrt(2), TestUtils.PRECISION);
+  }
+
+  @Test
+  public void testKnightGrid() {
+    Network<Integer> network = Network.createGridNetwork(16, 16, KNIGHT_DXS, KNIGHT_DYS);
+    Heuristic<Integer> heuristic = Heuristic.forGrid(16, KNIGHT_DXS, KNIGHT_DYS);
+
+    for (int goal = 0; goal < 256; goal += 7) {
+      assertThat(network.distance(0, goal, heuristic).getAsDouble())
+              .isCloseTo(network.distance(0, goal, Heuristic.none()).getAsDouble(), TestUtils.PRECISION);
+    }
+  }
+
+  @Test
+  public void testForGridSelection() {
+    assertThat(Heuristic.forGrid(10, FOUR_DXS, FOUR_DYS).estimate(0, 11)).isEqualTo(2);
+    assertThat(Heuristic.forGrid(10, EIGHT_DXS, EIGHT_DYS).estimate(0, 11))
+            .isCloseTo(Math.sqrt(2), TestUtils.PRECISION);
+    assertThat(Heuristic.forGrid(10, KNIGHT_DXS, KNIGHT_DYS).estimate(0, 21))
+            .isCloseTo(Math.sqrt(5), TestUtils.PRECISION);
+  }
+
+  @Test
+  public void bidirectionalShouldFollowCheapestEdges() {
+    ImmutableSet<Integer> nodes = TestUtils.generateNodes(5);
+    Edge<Integer> edge01 = new Edge<>(0, 1, 1);
+    Edge<Integer> edge12 = new Edge<>(1, 2, 1);
+    Edge<Integer> edge23 = new Edge<>(2, 3, 1);
+    Edge<Integer> edge03 = new Edge<>(0, 3, 4);
+    Edge<Integer> edge34 = new Edge<>(3, 4, 1);
+    Edge<Integer> edge40 = new Edge<>(4, 0, 1);
+    Network<Integer> network = new Network<>(nodes,
+            ImmutableSet.of(edge01, edge12, edge23, edge03, edge34, edge40));
+
+    Path<Integer> path = network.findPath(0, 4).get();
+
+    assertThat(path.getEdges()).containsExactly(edge01, edge12, edge23, edge34);
+    assertThat(path.getCost()).isEqualTo(4);
+    assertThat(network.distance(4, 3).getAsDouble()).isEqualTo(4);
+  }
+
+  @Test
+  public void bidirectionalPathToStartIsEmpty() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(2),
+            ImmutableSet.of(new Edge<>(0, 1, 1), new Edge<>(1, 0, 1)));
+
+    Path<Integer> path = network.findPath(1, 1).get();
+
+    assertThat(path.getEdges()).isEmpty();
+    assertThat(path.getCost()).isEqualTo(0);
+  }
+
+  @Test
+  public void bidirectionalUnreachableGoal() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(3),
+            ImmutableSet.of(new Edge<>(1, 0, 1), new Edge<>(0, 2, 1)));
+
+    assertThat(network.findPath(0, 1)).isEqualTo(Optional.empty());
+    assertThat(network.distance(2, 0).isPresent()).isFalse();
+  }
+
+  @Test
+  public void bidirectionalMatchesAStarOnGrid() {
+    Network<Integer> network = Network.createGridNetwork(20, 20, KNIGHT_DXS, KNIGHT_DYS);
+
+    for (int goal = 0; goal < 400; goal += 13) {
+      Path<Integer> path = network.findPath(21, goal).get();
+      assertThat(path.getCost())
+              .isCloseTo(network.distance(21, goal, Heuristic.none()).getAsDouble(), TestUtils.PRECISION);
+      assertThat(path.getStart()).isEqualTo(21);
+      assertThat(path.getEnd()).isEqualTo(goal);
+      assertThat(path.getEdges().stream().mapToDouble(Edge::getCost).sum())
+              .isCloseTo(path.getCost(), TestUtils.PRECISION);
+    }
+  }
+
+  @Test
+  public void bidirectionalAfterMerge() {
+    Network<Integer> networkA = new Network<>(TestUtils.generateNodes(3),
+            ImmutableSet.of(new Edge<>(0, 1, 5), new Edge<>(1, 2, 5)));
+    Network<Integer> networkB = new Network<>(TestUtils.generateNodes(3),
+            ImmutableSet.of(new Edge<>(0, 1, 1)));
+
+    assertThat(networkA.merge(networkB).distance(0, 2).getAsDouble()).isEqualTo(6);
+  }
+
+}
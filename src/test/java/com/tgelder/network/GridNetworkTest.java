@@ -0,0 +1,94 @@
+package com.tgelder.network;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GridNetworkTest {
+
+  private static final int[] NEIGHBOUR_DXS = {-1, 0, 1, 0, -1, 1, 1, -1};
+  private static final int[] NEIGHBOUR_DYS = {0, -1, 0, 1, -1, -1, 1, 1};
+
+  @Test
+  public void testMatchesCreateGridNetwork() {
+    GridNetwork grid = new GridNetwork(5, 4, NEIGHBOUR_DXS, NEIGHBOUR_DYS);
+    Network<Integer> network = Network.createGridNetwork(5, 4, NEIGHBOUR_DXS, NEIGHBOUR_DYS);
+
+    for (int node = 0; node < grid.size(); node++) {
+      assertThat(grid.getBelow(node).boxed())
+              .containsExactlyInAnyOrder(network.getBelow(node).toArray(Integer[]::new));
+      assertThat(grid.getAbove(node).boxed())
+              .containsExactlyInAnyOrder(network.getAbove(node).toArray(Integer[]::new));
+      int from = node;
+      grid.getOut(node).forEach(edge -> {
+        assertThat(edge.getFrom()).isEqualTo(from);
+        assertThat(edge.getCost()).isEqualTo(network.getEdges(from, edge.getTo()).findFirst().get().getCost());
+      });
+    }
+
+    assertThat(grid.getOut(0).count()).isEqualTo(3);
+    assertThat(grid.getOut(grid.getIndex(2, 2)).count()).isEqualTo(8);
+    assertThat(grid.getIn(grid.getIndex(4, 3)).count()).isEqualTo(3);
+  }
+
+  @Test
+  public void testToNetwork() {
+    GridNetwork grid = new GridNetwork(3, 3, NEIGHBOUR_DXS, NEIGHBOUR_DYS);
+    Network<Integer> network = grid.toNetwork();
+
+    assertThat(network.getNodes()).hasSize(9);
+    assertThat(network.getEdges()).hasSize(Network.createGridNetwork(3, 3, NEIGHBOUR_DXS, NEIGHBOUR_DYS)
+            .getEdges().size());
+  }
+
+  @Test
+  public void testFindClosest() {
+    GridNetwork grid = new GridNetwork(64, 64, NEIGHBOUR_DXS, NEIGHBOUR_DYS);
+
+    assertThat(grid.findClosest(0, n -> n == 4095)).containsExactly(4095);
+    assertThat(grid.findClosest(grid.getIndex(10, 10), n -> grid.getX(n) == 13 || grid.getX(n) == 7))
+            .containsExactlyInAnyOrder(grid.getIndex(13, 10), grid.getIndex(7, 10));
+  }
+
+  @Test
+  public void testGetNodes() {
+    GridNetwork grid = new GridNetwork(10, 10, NEIGHBOUR_DXS, NEIGHBOUR_DYS);
+
+    assertThat(grid.getNodes(grid.getIndex(5, 5), 2)).hasSize(9);
+  }
+
+  @Test
+  public void testBlockedCells() {
+    float[] multipliers = new float[9];
+    Arrays.fill(multipliers, 1);
+    multipliers[1] = Float.POSITIVE_INFINITY;
+    multipliers[4] = Float.POSITIVE_INFINITY;
+    GridNetwork grid = new GridNetwork(3, 3, new int[]{-1, 0, 1, 0}, new int[]{0, -1, 0, 1}, multipliers);
+
+    assertThat(grid.isBlocked(4)).isTrue();
+    assertThat(grid.getBelow(0).boxed()).containsExactly(3);
+    assertThat(grid.getBelow(4).boxed()).isEmpty();
+    assertThat(grid.getAbove(4).boxed()).isEmpty();
+    assertThat(grid.getNodes(0, 100)).containsExactlyInAnyOrder(0, 3, 6, 7, 8, 5, 2);
+    assertThat(grid.findClosest(0, n -> n == 2)).containsExactly(2);
+  }
+
+  @Test
+  public void testCostMultipliers() {
+    float[] multipliers = {1, 3, 1, 1, 1, 1};
+    GridNetwork grid = new GridNetwork(3, 2, new int[]{-1, 0, 1, 0}, new int[]{0, -1, 0, 1}, multipliers);
+
+    assertThat(grid.getOut(0).filter(e -> e.getTo() == 1).findFirst().get().getCost()).isEqualTo(2);
+    assertThat(grid.getIn(0).filter(e -> e.getFrom() == 1).findFirst().get().getCost()).isEqualTo(2);
+    assertThat(grid.getNodes(0, 2)).containsExactlyInAnyOrder(0, 3);
+    assertThat(grid.getNodes(0, 4)).containsExactlyInAnyOrder(0, 1, 3, 4, 5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongNumberOfMultipliers() {
+    new GridNetwork(3, 3, new int[]{1}, new int[]{0}, new float[8]);
+  }
+
+}
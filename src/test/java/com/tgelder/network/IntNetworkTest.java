@@ -0,0 +1,129 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntNetworkTest {
+
+  @Test
+  public void testForEachOutAndIn() {
+    IntNetwork network = new IntNetwork(4,
+            new int[]{0, 0, 0, 2},
+            new int[]{1, 2, 2, 3},
+            new double[]{1, 2, 3, 4});
+
+    List<String> out = new ArrayList<>();
+    network.forEachOut(0, (node, cost) -> out.add(node + ":" + cost));
+    assertThat(out).containsExactlyInAnyOrder("1:1.0", "2:2.0", "2:3.0");
+
+    List<String> in = new ArrayList<>();
+    network.forEachIn(2, (node, cost) -> in.add(node + ":" + cost));
+    assertThat(in).containsExactlyInAnyOrder("0:2.0", "0:3.0");
+
+    assertThat(network.getOutDegree(3)).isEqualTo(0);
+    assertThat(network.getInDegree(3)).isEqualTo(1);
+    assertThat(network.getEdgeCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void testFindClosest() {
+    IntNetwork network = new IntNetwork(7,
+            new int[]{0, 0, 0, 1},
+            new int[]{2, 4, 1, 6},
+            new double[]{10, 10, 1, 1});
+
+    assertThat(network.findClosest(0, i -> i % 2 == 0)).containsExactly(6);
+  }
+
+  @Test
+  public void testFindClosestTies() {
+    IntNetwork network = new IntNetwork(3,
+            new int[]{1, 1, 1, 1},
+            new int[]{0, 0, 2, 2},
+            new double[]{4, 1, 2, 1});
+
+    assertThat(network.findClosest(1, i -> i % 2 == 0)).containsExactlyInAnyOrder(0, 2);
+  }
+
+  @Test
+  public void testFindClosestNotStart() {
+    IntNetwork network = new IntNetwork(3,
+            new int[]{0, 1, 0},
+            new int[]{1, 0, 2},
+            new double[]{1, 1, 3});
+
+    assertThat(network.findClosest(0, i -> i % 2 == 0)).containsExactly(2);
+    assertThat(network.findClosest(1, i -> i == 1)).isEmpty();
+  }
+
+  @Test
+  public void testGetNodes() {
+    IntNetwork network = new IntNetwork(10,
+            new int[]{0, 0, 0, 0, 1, 1, 2, 3, 4, 5},
+            new int[]{1, 6, 7, 8, 2, 3, 5, 4, 5, 2},
+            new double[]{1, 5, 6, 7, 10, 1, 1, 1, 1, 10});
+
+    assertThat(network.getNodes(0, 6)).containsExactlyInAnyOrder(0, 1, 3, 4, 5, 6);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEdgeOutsideNetwork() {
+    new IntNetwork(2, new int[]{0}, new int[]{2}, new double[]{1});
+  }
+
+  @Test
+  public void testFromNetwork() {
+    int[] neighbourDXs = {-1, 0, 1, 0};
+    int[] neighbourDYs = {0, -1, 0, 1};
+    Network<Integer> gridNetwork = Network.createGridNetwork(16, 16, neighbourDXs, neighbourDYs);
+
+    IntNetwork network = IntNetwork.fromNetwork(gridNetwork);
+
+    assertThat(network.size()).isEqualTo(256);
+    assertThat(network.getEdgeCount()).isEqualTo(gridNetwork.getEdges().size());
+    assertThat(network.findClosest(0, i -> i == 255)).containsExactly(255);
+    assertThat(network.getNodes(17, 2)).containsExactlyInAnyOrder(1, 16, 17, 18, 33);
+    assertThat(gridNetwork.getNodes(17, 2)).containsExactlyInAnyOrder(1, 16, 17, 18, 33);
+  }
+
+  @Test
+  public void testRoundTripWithIndex() {
+    ImmutableSet<String> nodes = ImmutableSet.of("a", "b", "c");
+    Edge<String> ab = new Edge<>("a", "b", 1);
+    Edge<String> bc = new Edge<>("b", "c", 2);
+    Network<String> network = new Network<>(nodes, ImmutableSet.of(ab, bc));
+
+    NodeIndex<String> index = NodeIndex.of(nodes);
+    IntNetwork intNetwork = IntNetwork.fromNetwork(network, index);
+
+    assertThat(intNetwork.findClosest(index.getId("a"), i -> index.getNode(i).equals("c")))
+            .containsExactly(index.getId("c"));
+
+    Network<String> converted = intNetwork.toNetwork(index);
+    assertThat(converted.getNodes()).containsExactlyInAnyOrder("a", "b", "c");
+    assertThat(converted.getEdges("b", "c").findFirst().get().getCost()).isEqualTo(2);
+    assertThat(converted.getIn("a")).isEmpty();
+  }
+
+  @Test
+  public void testWithoutParallelEdges() {
+    IntNetwork network = new IntNetwork(3,
+            new int[]{0, 0, 0, 1, 1},
+            new int[]{1, 1, 2, 2, 2},
+            new double[]{4, 2, 5, 3, 1});
+
+    IntNetwork collapsed = network.withoutParallelEdges();
+
+    assertThat(collapsed.getEdgeCount()).isEqualTo(3);
+    List<String> out = new ArrayList<>();
+    collapsed.forEachOut(0, (node, cost) -> out.add(node + ":" + cost));
+    assertThat(out).containsExactlyInAnyOrder("1:2.0", "2:5.0");
+    assertThat(collapsed.getCostsFrom(0)).containsExactly(network.getCostsFrom(0));
+  }
+
+}
@@ -0,0 +1,75 @@
+package com.tgelder.network;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntRadixHeapTest {
+
+  @Test
+  public void shouldPollInKeyOrder() {
+    Random random = new Random(1);
+    IntRadixHeap radixHeap = new IntRadixHeap();
+    PriorityQueue<Double> expected = new PriorityQueue<>();
+    double last = 0;
+
+    for (int round = 0; round < 1000; round++) {
+      for (int i = random.nextInt(5); i >= 0; i--) {
+        double key = last + random.nextInt(4) * Math.sqrt(2) + random.nextInt(3);
+        radixHeap.offer(i, key);
+        expected.add(key);
+      }
+      last = expected.poll();
+      assertThat(radixHeap.peekKey()).isEqualTo(last);
+      radixHeap.poll();
+    }
+    while (!expected.isEmpty()) {
+      assertThat(radixHeap.peekKey()).isEqualTo(expected.poll());
+      radixHeap.poll();
+    }
+    assertThat(radixHeap.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldBeReusableAfterClear() {
+    IntRadixHeap radixHeap = new IntRadixHeap();
+    radixHeap.offer(0, 100);
+    radixHeap.poll();
+    radixHeap.offer(1, 200);
+    radixHeap.clear();
+
+    radixHeap.offer(2, 3);
+    radixHeap.offer(3, 1);
+
+    assertThat(radixHeap.poll()).isEqualTo(3);
+    assertThat(radixHeap.poll()).isEqualTo(2);
+    assertThat(radixHeap.isEmpty()).isTrue();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectKeysBelowLastPolled() {
+    IntRadixHeap radixHeap = new IntRadixHeap();
+    radixHeap.offer(0, 5);
+    radixHeap.poll();
+
+    radixHeap.offer(1, 4.999);
+  }
+
+  @Test
+  public void searchesShouldAgreeWithBinaryHeap() {
+    int[] neighbourDXs = {-1, 0, 1, 0, -1, 1, 1, -1, 2, 1, -1, -2};
+    int[] neighbourDYs = {0, -1, 0, 1, -1, -1, 1, 1, 1, 2, 2, 1};
+    float[] ones = new float[64 * 64];
+    Arrays.fill(ones, 1);
+    GridNetwork discrete = new GridNetwork(64, 64, neighbourDXs, neighbourDYs);
+    GridNetwork general = new GridNetwork(64, 64, neighbourDXs, neighbourDYs, ones);
+
+    assertThat(discrete.getCostsFrom(130)).containsExactly(general.getCostsFrom(130));
+    assertThat(discrete.getCostsTo(4000)).containsExactly(general.getCostsTo(4000));
+  }
+
+}
@@ -0,0 +1,76 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IsochroneTest {
+
+  private final int[] neighbourDXs = {-1, 0, 1, 0, -1, 1, 1, -1};
+  private final int[] neighbourDYs = {0, -1, 0, 1, -1, -1, 1, 1};
+
+  @Test
+  public void bandsShouldMatchRepeatedGetNodes() {
+    Network<Integer> network = Network.createGridNetwork(40, 40, neighbourDXs, neighbourDYs);
+    int start = 820;
+
+    Isochrone<Integer> isochrone = network.getIsochrone(start, 5, 10, 15, 30);
+
+    assertThat(isochrone.getBands()).hasSize(4);
+    assertThat(isochrone.getWithin(0)).isEqualTo(network.getNodes(start, 5));
+    assertThat(isochrone.getWithin(1)).isEqualTo(network.getNodes(start, 10));
+    assertThat(isochrone.getWithin(2)).isEqualTo(network.getNodes(start, 15));
+    assertThat(isochrone.getWithin(3)).isEqualTo(network.getNodes(start, 30));
+    assertThat(isochrone.getBands().get(1)).doesNotContainAnyElementsOf(isochrone.getBands().get(0));
+  }
+
+  @Test
+  public void shouldSupportFractionalThresholdsAndCosts() {
+    Network<Integer> network = Network.createGridNetwork(3, 3, neighbourDXs, neighbourDYs);
+
+    Isochrone<Integer> isochrone = network.getIsochrone(0, new double[]{1.2, 1.5}, true);
+
+    assertThat(isochrone.getBands().get(0)).containsExactlyInAnyOrder(0, 1, 3);
+    assertThat(isochrone.getBands().get(1)).containsExactly(4);
+    assertThat(isochrone.getCost(4).getAsDouble()).isCloseTo(Math.sqrt(2), TestUtils.PRECISION);
+    assertThat(isochrone.getCost(8).isPresent()).isFalse();
+    assertThat(network.getIsochrone(0, 1.2).getCost(1).isPresent()).isFalse();
+  }
+
+  @Test
+  public void shouldMatchIntLevelBands() {
+    GridNetwork grid = new GridNetwork(20, 20, neighbourDXs, neighbourDYs);
+    Network<Integer> network = grid.toNetwork();
+    double[] thresholds = {0.5, 2, 2.9, 7.5};
+
+    int[][] bands = grid.getBands(210, thresholds);
+    Isochrone<Integer> isochrone = network.getIsochrone(210, thresholds);
+
+    for (int band = 0; band < thresholds.length; band++) {
+      assertThat(ImmutableSet.copyOf(Arrays.stream(bands[band]).boxed().iterator()))
+              .isEqualTo(isochrone.getBands().get(band));
+    }
+    assertThat(bands[0]).containsExactly(210);
+  }
+
+  @Test
+  public void unknownStartFallsInFirstPositiveBand() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(1), ImmutableSet.of());
+
+    Isochrone<Integer> isochrone = network.getIsochrone(5, 0, 1);
+
+    assertThat(isochrone.getBands().get(0)).isEmpty();
+    assertThat(isochrone.getBands().get(1)).containsExactly(5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectUnsortedThresholds() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(1), ImmutableSet.of());
+
+    network.getIsochrone(0, 2, 1);
+  }
+
+}
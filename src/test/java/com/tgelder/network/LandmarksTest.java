@@ -0,0 +1,83 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.OptionalDouble;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LandmarksTest {
+
+  @Test
+  public void testEstimatesNeverExceedCost() {
+    Network<Integer> network = TestUtils.randomNetwork(new Random(1), 150, 450, 20);
+    Landmarks<Integer> landmarks = Landmarks.build(network, 4);
+
+    for (int start = 0; start < 150; start += 7) {
+      for (int goal = 0; goal < 150; goal += 3) {
+        OptionalDouble cost = network.distance(start, goal);
+        if (cost.isPresent()) {
+          assertThat(landmarks.estimate(start, goal)).isLessThanOrEqualTo(cost.getAsDouble() + 1e-9);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFindPathWithLandmarks() {
+    Network<Integer> network = TestUtils.randomNetwork(new Random(2), 150, 450, 20);
+    Landmarks<Integer> landmarks = Landmarks.build(network, 4);
+
+    for (int goal = 0; goal < 150; goal++) {
+      OptionalDouble expected = network.distance(3, goal);
+      OptionalDouble actual = network.distance(3, goal, landmarks);
+      assertThat(actual.isPresent()).isEqualTo(expected.isPresent());
+      if (expected.isPresent()) {
+        assertThat(actual.getAsDouble()).isCloseTo(expected.getAsDouble(), TestUtils.PRECISION);
+      }
+    }
+  }
+
+  @Test
+  public void testFarthestSelectionOnGrid() {
+    int[] neighbourDXs = {-1, 0, 1, 0};
+    int[] neighbourDYs = {0, -1, 0, 1};
+    Network<Integer> network = Network.createGridNetwork(10, 10, neighbourDXs, neighbourDYs);
+
+    Landmarks<Integer> landmarks = Landmarks.build(network, 2);
+
+    assertThat(landmarks.getLandmarks()).containsExactlyInAnyOrder(0, 99);
+    assertThat(landmarks.estimate(0, 99)).isEqualTo(18);
+    assertThat(landmarks.estimate(11, 88)).isEqualTo(14);
+  }
+
+  @Test
+  public void testEveryComponentGetsALandmark() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(4), ImmutableSet.of(
+            new Edge<>(0, 1, 1), new Edge<>(1, 0, 1),
+            new Edge<>(2, 3, 1), new Edge<>(3, 2, 1)));
+
+    Landmarks<Integer> landmarks = Landmarks.build(network, 2);
+
+    assertThat(landmarks.getLandmarks()).hasSize(2);
+    assertThat(landmarks.getLandmarks().stream().filter(n -> n < 2).count()).isEqualTo(1);
+    assertThat(landmarks.estimate(0, 2)).isEqualTo(Double.POSITIVE_INFINITY);
+    assertThat(landmarks.estimate(0, 1)).isEqualTo(1);
+  }
+
+  @Test
+  public void testChosenLandmarks() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(3), ImmutableSet.of(
+            new Edge<>(0, 1, 2), new Edge<>(1, 2, 3)));
+
+    Landmarks<Integer> landmarks = Landmarks.build(network, ImmutableList.of(2));
+
+    assertThat(landmarks.getLandmarks()).containsExactly(2);
+    assertThat(landmarks.estimate(0, 1)).isEqualTo(2);
+    assertThat(landmarks.estimate(1, 0)).isEqualTo(0);
+  }
+
+}
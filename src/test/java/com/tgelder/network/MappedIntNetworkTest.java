@@ -0,0 +1,112 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MappedIntNetworkTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void shouldMatchIntNetwork() throws IOException {
+    Random random = new Random(1);
+    int size = 200;
+    int[] froms = new int[800];
+    int[] tos = new int[800];
+    double[] costs = new double[800];
+    for (int i = 0; i < froms.length; i++) {
+      froms[i] = random.nextInt(size);
+      tos[i] = random.nextInt(size);
+      costs[i] = random.nextDouble() * 10;
+    }
+    IntNetwork network = new IntNetwork(size, froms, tos, costs);
+    File file = folder.newFile();
+
+    MappedIntNetwork.write(network, file);
+    MappedIntNetwork mapped = MappedIntNetwork.open(file);
+
+    assertThat(mapped.size()).isEqualTo(size);
+    assertThat(mapped.getEdgeCount()).isEqualTo(800);
+    assertThat(mapped.hasNodeTable()).isFalse();
+    for (int node = 0; node < size; node += 7) {
+      assertThat(mapped.getCostsFrom(node)).containsExactly(network.getCostsFrom(node));
+      assertThat(mapped.getCostsTo(node)).containsExactly(network.getCostsTo(node));
+    }
+  }
+
+  @Test
+  public void shouldKeepNodeTable() throws IOException {
+    Network<String> network = new Network<>(ImmutableSet.of("b", "a", "\u0107"),
+            ImmutableSet.of(new Edge<>("b", "a", 1), new Edge<>("a", "\u0107", 2), new Edge<>("b", "\u0107", 5)));
+    File file = folder.newFile();
+
+    MappedIntNetwork.write(network, file);
+    MappedIntNetwork mapped = MappedIntNetwork.open(file);
+    NodeDictionary<String> nodes = mapped.getNodeDictionary(String.class);
+
+    assertThat(mapped.hasNodeTable()).isTrue();
+    assertThat(nodes.size()).isEqualTo(3);
+    assertThat(nodes.getNode(0)).isEqualTo("b");
+    assertThat(nodes.getNode(2)).isEqualTo("\u0107");
+    assertThat(nodes.getId("a")).isEqualTo(1);
+    assertThat(nodes.getId("d")).isEqualTo(-1);
+    double[] costs = mapped.getCostsFrom(nodes.getId("b"));
+    assertThat(costs[nodes.getId("\u0107")]).isEqualTo(3);
+    assertThat(mapped.getNodes(nodes.getId("b"), 2)).containsExactly(nodes.getId("b"), nodes.getId("a"));
+  }
+
+  @Test
+  public void shouldKeepNumericNodeTables() throws IOException {
+    File integers = folder.newFile();
+    File longs = folder.newFile();
+
+    MappedIntNetwork.write(new Network<>(ImmutableSet.of(30, -4, 7), ImmutableSet.of(new Edge<>(30, 7, 1))), integers);
+    MappedIntNetwork.write(new Network<>(ImmutableSet.of(1L << 40, 5L), ImmutableSet.of(new Edge<>(5L, 1L << 40, 1))),
+            longs);
+    NodeDictionary<Integer> integerNodes = MappedIntNetwork.open(integers).getNodeDictionary(Integer.class);
+    NodeDictionary<Long> longNodes = MappedIntNetwork.open(longs).getNodeDictionary(Long.class);
+
+    assertThat(integerNodes.getId(30)).isEqualTo(0);
+    assertThat(integerNodes.getId(-4)).isEqualTo(1);
+    assertThat(integerNodes.getId(7)).isEqualTo(2);
+    assertThat(integerNodes.getId(8)).isEqualTo(-1);
+    assertThat(integerNodes.getNode(1)).isEqualTo(-4);
+    assertThat(longNodes.getId(1L << 40)).isEqualTo(0);
+    assertThat(longNodes.getId(5L)).isEqualTo(1);
+    assertThat(longNodes.getNode(0)).isEqualTo(1L << 40);
+  }
+
+  @Test
+  public void shouldRejectOtherNodeTypes() throws IOException {
+    File file = folder.newFile();
+    MappedIntNetwork.write(new Network<>(ImmutableSet.of(1, 2), ImmutableSet.of(new Edge<>(1, 2, 1))), file);
+    MappedIntNetwork mapped = MappedIntNetwork.open(file);
+
+    assertThatThrownBy(() -> mapped.getNodeDictionary(String.class)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> MappedIntNetwork.write(new Network<>(ImmutableSet.of(1.5), ImmutableSet.of()), file))
+            .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldRejectTruncatedFiles() throws IOException {
+    File file = folder.newFile();
+    MappedIntNetwork.write(new IntNetwork(3, new int[]{0, 1}, new int[]{1, 2}, new double[]{1, 1}), file);
+    try (RandomAccessFile handle = new RandomAccessFile(file, "rw")) {
+      handle.setLength(handle.length() - 4);
+    }
+
+    MappedIntNetwork.open(file);
+  }
+
+}
@@ -0,0 +1,115 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MultiLevelOverlayTest {
+
+  private final int[] neighbourDXs = {-1, 0, 1, 0, -1, 1, 1, -1};
+  private final int[] neighbourDYs = {0, -1, 0, 1, -1, -1, 1, 1};
+
+  private static void assertMatches(Network<Integer> network, MultiLevelOverlay<Integer> overlay) {
+    for (int start = 0; start < network.getNodes().size(); start += 7) {
+      for (int goal = 0; goal < network.getNodes().size(); goal += 11) {
+        OptionalDouble expected = network.distance(start, goal);
+        OptionalDouble actual = overlay.distance(start, goal);
+        assertThat(actual.isPresent()).isEqualTo(expected.isPresent());
+        if (expected.isPresent()) {
+          assertThat(actual.getAsDouble()).isCloseTo(expected.getAsDouble(), TestUtils.PRECISION);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMatchesDijkstraOnGrid() {
+    Network<Integer> network = Network.createGridNetwork(30, 30, neighbourDXs, neighbourDYs);
+
+    MultiLevelOverlay<Integer> overlay = MultiLevelOverlay.build(network, 16, 4, 3);
+
+    assertThat(overlay.getLevelCount()).isEqualTo(3);
+    assertThat(overlay.getCellCount(0)).isGreaterThan(overlay.getCellCount(1));
+    assertMatches(network, overlay);
+  }
+
+  @Test
+  public void testMatchesDijkstraOnRandomNetwork() {
+    Network<Integer> network = TestUtils.randomNetwork(new Random(1), 300, 900, 20);
+
+    assertMatches(network, MultiLevelOverlay.build(network, 20, 3, 3));
+  }
+
+  @Test
+  public void testCellsAreNested() {
+    Network<Integer> network = Network.createGridNetwork(20, 20, neighbourDXs, neighbourDYs);
+    MultiLevelOverlay<Integer> overlay = MultiLevelOverlay.build(network, 10, 4, 3);
+
+    Map<Integer, Integer> parents = new HashMap<>();
+    Map<Integer, Integer> sizes = new HashMap<>();
+    for (int node : network.getNodes()) {
+      sizes.merge(overlay.getCell(node, 0), 1, Integer::sum);
+      Integer parent = parents.putIfAbsent(overlay.getCell(node, 0), overlay.getCell(node, 1));
+      assertThat(parent == null || parent == overlay.getCell(node, 1)).isTrue();
+    }
+    assertThat(sizes.values()).allMatch(size -> size <= 10);
+  }
+
+  @Test
+  public void testPathsAreUnpacked() {
+    Network<Integer> network = TestUtils.randomNetwork(new Random(2), 200, 700, 20);
+    MultiLevelOverlay<Integer> overlay = MultiLevelOverlay.build(network, 16, 3, 3);
+
+    for (int goal = 1; goal < 200; goal += 3) {
+      int end = goal;
+      Optional<Path<Integer>> expected = network.findPath(0, goal);
+      Optional<Path<Integer>> actual = overlay.findPath(0, goal);
+      assertThat(actual.isPresent()).isEqualTo(expected.isPresent());
+      actual.ifPresent(path -> {
+        assertThat(path.getStart()).isEqualTo(0);
+        assertThat(path.getEnd()).isEqualTo(end);
+        for (int i = 1; i < path.getEdges().size(); i++) {
+          assertThat(path.getEdges().get(i).getFrom()).isEqualTo(path.getEdges().get(i - 1).getTo());
+        }
+        assertThat(path.getEdges().stream().mapToDouble(Edge::getCost).sum())
+                .isCloseTo(path.getCost(), TestUtils.PRECISION);
+        assertThat(path.getCost()).isCloseTo(expected.get().getCost(), TestUtils.PRECISION);
+      });
+    }
+  }
+
+  @Test
+  public void testUpdateRecomputesOnlyAffectedCells() {
+    Network<Integer> network = Network.createGridNetwork(30, 30, neighbourDXs, neighbourDYs);
+    MultiLevelOverlay<Integer> overlay = MultiLevelOverlay.build(network, 16, 4, 3);
+    Edge<Integer> edge = network.getOut(465).filter(e -> e.getTo() == 466).findFirst().get();
+    Edge<Integer> other = network.getOut(100).filter(e -> e.getTo() == 130).findFirst().get();
+    Map<Edge<Integer>, Double> costs = ImmutableMap.of(edge, 50.0, other, 0.1);
+
+    network.updateCosts(costs);
+    int recomputed = overlay.update(costs.keySet());
+
+    assertThat(recomputed).isBetween(1, 6);
+    assertMatches(network, overlay);
+    assertThat(overlay.distance(465, 466).getAsDouble()).isCloseTo(1 + Math.sqrt(2), TestUtils.PRECISION);
+  }
+
+  @Test
+  public void testUnreachableAndUnknownNodes() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(3),
+            ImmutableSet.of(new Edge<>(0, 1, 1), new Edge<>(1, 0, 1)));
+    MultiLevelOverlay<Integer> overlay = MultiLevelOverlay.build(network, 1, 2, 2);
+
+    assertThat(overlay.distance(0, 1).getAsDouble()).isEqualTo(1);
+    assertThat(overlay.distance(0, 2).isPresent()).isFalse();
+    assertThat(overlay.findPath(2, 2).get().getEdges()).isEmpty();
+    assertThat(overlay.distance(5, 0).isPresent()).isFalse();
+    assertThatThrownBy(() -> overlay.getCell(5, 0)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+}
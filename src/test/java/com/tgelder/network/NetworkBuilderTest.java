@@ -0,0 +1,134 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class NetworkBuilderTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static List<Edge<Integer>> randomEdges(int nodes, int edges, long seed) {
+    Random random = new Random(seed);
+    ImmutableList.Builder<Edge<Integer>> builder = ImmutableList.builder();
+    for (int i = 0; i < edges; i++) {
+      builder.add(new Edge<>(random.nextInt(nodes), random.nextInt(nodes), 1 + random.nextInt(20)));
+    }
+    return builder.build();
+  }
+
+  private static void assertSameNetwork(Network<Integer> actual, Network<Integer> expected) {
+    assertThat(actual.getNodes()).isEqualTo(expected.getNodes());
+    assertThat(actual.getEdges()).hasSameSizeAs(expected.getEdges());
+    for (int node : expected.getNodes()) {
+      assertThat(describe(actual.getOut(node).collect(Collectors.toList())))
+              .containsExactlyElementsOf(describe(expected.getOut(node).collect(Collectors.toList())));
+      assertThat(describe(actual.getIn(node).collect(Collectors.toList())))
+              .containsExactlyElementsOf(describe(expected.getIn(node).collect(Collectors.toList())));
+    }
+  }
+
+  private static List<String> describe(List<Edge<Integer>> edges) {
+    return edges.stream()
+            .map(edge -> edge.getFrom() + "," + edge.getTo() + "," + edge.getCost())
+            .collect(Collectors.toList());
+  }
+
+  @Test
+  public void shouldMatchConstructor() {
+    List<Edge<Integer>> edges = randomEdges(100, 400, 1);
+
+    Network<Integer> built = new NetworkBuilder<Integer>()
+            .addNodes(TestUtils.generateNodes(100))
+            .addEdges(edges.iterator())
+            .build();
+
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(100), ImmutableSet.copyOf(edges));
+    assertSameNetwork(built, network);
+    assertThat(built.getEdges()).containsExactlyElementsOf(network.getEdges());
+  }
+
+  @Test
+  public void shouldKeepIsolatedNodesAndOrderNodesAsSeen() {
+    Network<String> network = new NetworkBuilder<String>()
+            .addEdge("b", "c", 2)
+            .addNode("a")
+            .addEdges(ImmutableList.of(new Edge<>("c", "b", 1)).parallelStream())
+            .build();
+
+    assertThat(network.getNodes()).containsExactly("b", "c", "a");
+    assertThat(network.getOut("a")).isEmpty();
+    assertThat(network.getIn("b").map(Edge::getFrom)).containsExactly("c");
+    assertThat(network.distance("b", "c").getAsDouble()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldBuildSameGridAsBefore() {
+    int[] neighbourDXs = {-1, 0, 1, 0};
+    int[] neighbourDYs = {0, -1, 0, 1};
+    Network<Integer> grid = Network.createGridNetwork(7, 5, neighbourDXs, neighbourDYs);
+
+    assertThat(grid.getNodes()).containsExactlyElementsOf(TestUtils.generateNodes(35));
+    assertThat(grid.getEdges()).hasSize(2 * (6 * 5 + 7 * 4));
+    assertThat(grid.getEdges().iterator().next().getFrom()).isEqualTo(0);
+    assertThat(grid.getOut(8).map(Edge::getTo)).containsExactly(7, 1, 9, 15);
+  }
+
+  @Test
+  public void shouldReadCsvInChunks() throws IOException {
+    List<Edge<Integer>> edges = randomEdges(50, 300, 2);
+    StringBuilder text = new StringBuilder("# from,to,cost\n\n");
+    for (Edge<Integer> edge : edges) {
+      text.append(edge.getFrom()).append(", ").append(edge.getTo()).append(',').append(edge.getCost()).append('\n');
+    }
+    File file = folder.newFile("edges.csv");
+    Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.US_ASCII));
+
+    Network<Integer> expected = new NetworkBuilder<Integer>().addEdges(edges.iterator()).build();
+    assertSameNetwork(NetworkBuilder.readCsv(file).build(), expected);
+    assertSameNetwork(NetworkBuilder.readCsv(file, 37).build(), expected);
+  }
+
+  @Test
+  public void shouldRejectMalformedCsv() throws IOException {
+    File file = folder.newFile("bad.csv");
+    Files.write(file.toPath(), "0,1,2\n1,x,3\n".getBytes(StandardCharsets.US_ASCII));
+
+    assertThatThrownBy(() -> NetworkBuilder.readCsv(file)).isInstanceOf(IOException.class).hasMessageContaining("1,x,3");
+  }
+
+  @Test
+  public void shouldRoundTripBinary() throws IOException {
+    List<Edge<Integer>> edges = randomEdges(80, 500, 3);
+    File file = folder.newFile("edges.bin");
+    NetworkBuilder.writeBinary(edges, file);
+
+    assertThat(file.length()).isEqualTo(500L * NetworkBuilder.BINARY_RECORD_BYTES);
+    Network<Integer> expected = new NetworkBuilder<Integer>().addEdges(edges.iterator()).build();
+    assertSameNetwork(NetworkBuilder.readBinary(file).build(), expected);
+    assertSameNetwork(NetworkBuilder.readBinary(file, 100).build(), expected);
+  }
+
+  @Test
+  public void shouldRejectTruncatedBinary() throws IOException {
+    File file = folder.newFile("short.bin");
+    Files.write(file.toPath(), new byte[20]);
+
+    assertThatThrownBy(() -> NetworkBuilder.readBinary(file)).isInstanceOf(IOException.class);
+  }
+
+}
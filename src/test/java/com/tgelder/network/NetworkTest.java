@@ -4,6 +4,12 @@ import com.google.common.collect.ImmutableSet;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SuppressWarnings({"unchecked"})
@@ -172,6 +178,65 @@ public class NetworkTest {
     assertThat(networkMerged.getEdges(3, 2).findFirst().get().getCost()).isEqualTo(2);
   }
 
+  private static void assertAdjacencyMatchesEdges(Network<Integer> network) {
+    for (Integer node : network.getNodes()) {
+      assertThat(network.getOut(node).toArray())
+              .containsExactlyInAnyOrder(network.getEdges().stream().filter(e -> e.getFrom().equals(node)).toArray());
+      assertThat(network.getIn(node).toArray())
+              .containsExactlyInAnyOrder(network.getEdges().stream().filter(e -> e.getTo().equals(node)).toArray());
+    }
+  }
+
+  @Test
+  public void testMergeKeepsAdjacencyConsistent() {
+    Random random = new Random(1);
+    Network<Integer> networkA = TestUtils.randomNetwork(random, 20, 60, 5);
+    Network<Integer> networkB = TestUtils.randomNetwork(random, 30, 40, 5);
+
+    Network<Integer> merged = networkA.merge(networkB);
+
+    assertAdjacencyMatchesEdges(merged);
+    assertThat(merged.getNodes()).hasSize(30);
+    for (Edge<Integer> edge : networkA.getEdges()) {
+      boolean overridden = networkB.getEdges(edge.getFrom(), edge.getTo()).count() > 0;
+      assertThat(merged.getEdges().contains(edge)).isEqualTo(!overridden);
+    }
+    assertThat(merged.getEdges()).containsAll(networkB.getEdges());
+  }
+
+  @Test
+  public void testMergeAll() {
+    Random random = new Random(2);
+    List<Network<Integer>> networks = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      networks.add(TestUtils.randomNetwork(random, 10 + i * 5, 40, 5));
+    }
+
+    Network<Integer> expected = networks.get(0);
+    for (int i = 1; i < networks.size(); i++) {
+      expected = expected.merge(networks.get(i));
+    }
+    Network<Integer> actual = Network.mergeAll(networks);
+
+    assertThat(actual.getNodes()).isEqualTo(expected.getNodes());
+    assertThat(actual.getEdges().toArray()).containsExactlyInAnyOrder(expected.getEdges().toArray());
+    assertAdjacencyMatchesEdges(actual);
+  }
+
+  @Test
+  public void testForEachOutAndInUseCheapestParallelEdge() {
+    Map<Integer, Double> out = new HashMap<>();
+    network.forEachOut(0, out::put);
+    Map<Integer, Double> in = new HashMap<>();
+    network.forEachIn(3, in::put);
+
+    assertThat(out).containsOnlyKeys(1, 2);
+    assertThat(out.get(2)).isEqualTo(Math.min(edge02a.getCost(), edge02b.getCost()));
+    assertThat(in).containsOnlyKeys(1, 2);
+    assertThat(in.get(2)).isEqualTo(Math.min(edge23a.getCost(), edge23b.getCost()));
+    assertThat(network.getBelow(0).toArray()).containsExactlyInAnyOrder(1, 2);
+  }
+
   @Test
   public void testCreateGridNetwork() {
     int[] neighbourDXs = {-1, 0, 1, 0};
@@ -0,0 +1,68 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OffHeapNetworkTest {
+
+  @Test
+  public void shouldMatchNetwork() {
+    Random random = new Random(1);
+    ImmutableSet.Builder<Edge<String>> edges = ImmutableSet.builder();
+    for (int i = 0; i < 300; i++) {
+      edges.add(new Edge<>("n" + random.nextInt(100), "n" + random.nextInt(100), 1 + random.nextInt(10)));
+    }
+    ImmutableSet.Builder<String> nodes = ImmutableSet.builder();
+    for (int i = 0; i < 100; i++) {
+      nodes.add("n" + i);
+    }
+    Network<String> network = new Network<>(nodes.build(), edges.build());
+
+    OffHeapNetwork<String> offHeap = OffHeapNetwork.fromNetwork(network);
+
+    assertThat(offHeap.getGraph().getEdgeCount()).isEqualTo(300);
+    for (String node : network.getNodes()) {
+      assertThat(offHeap.getOut(node).map(e -> e.getTo() + ":" + e.getCost()).toArray())
+              .containsExactlyInAnyOrder(network.getOut(node).map(e -> e.getTo() + ":" + e.getCost()).toArray());
+      assertThat(offHeap.getIn(node).map(e -> e.getFrom() + ":" + e.getCost()).toArray())
+              .containsExactlyInAnyOrder(network.getIn(node).map(e -> e.getFrom() + ":" + e.getCost()).toArray());
+      assertThat(offHeap.findClosest(node, n -> n.endsWith("7"))).isEqualTo(network.findClosest(node, n -> n.endsWith("7")));
+      assertThat(offHeap.getNodes(node, 8)).isEqualTo(network.getNodes(node, 8));
+    }
+    assertThat(offHeap.getNodes("missing", 1)).containsExactly("missing");
+    assertThat(offHeap.getOut("missing").count()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldCopyGridNetwork() {
+    int[] neighbourDXs = {-1, 0, 1, 0, -1, 1, 1, -1};
+    int[] neighbourDYs = {0, -1, 0, 1, -1, -1, 1, 1};
+    GridNetwork grid = new GridNetwork(30, 20, neighbourDXs, neighbourDYs);
+
+    OffHeapNetwork<Integer> offHeap = OffHeapNetwork.ofIntegers(grid);
+
+    assertThat(offHeap.getGraph().getCostsFrom(31)).containsExactly(grid.getCostsFrom(31));
+    assertThat(offHeap.findClosest(0, n -> n == 599)).containsExactly(599);
+    assertThat(offHeap.getBelow(0).toArray()).containsExactlyInAnyOrder(1, 30, 31);
+  }
+
+  @Test
+  public void arraysShouldSpanSegments() {
+    OffHeapArray longs = new OffHeapArray(100, 8, 64);
+    OffHeapArray ints = new OffHeapArray(100, 4, 64);
+    for (int i = 0; i < 100; i++) {
+      longs.setLong(i, (long) i << 40);
+      ints.setInt(i, -i);
+    }
+
+    for (int i = 0; i < 100; i++) {
+      assertThat(longs.getLong(i)).isEqualTo((long) i << 40);
+      assertThat(ints.getInt(i)).isEqualTo(-i);
+    }
+  }
+
+}
@@ -0,0 +1,153 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class QueryCacheTest {
+
+  private final int[] neighbourDXs = {-1, 0, 1, 0};
+  private final int[] neighbourDYs = {0, -1, 0, 1};
+
+  @Test
+  public void shouldReturnCachedResults() {
+    Network<Integer> network = Network.createGridNetwork(10, 10, neighbourDXs, neighbourDYs);
+    QueryCache<Integer> cache = new QueryCache<>(network, 1000);
+    NamedPredicate<Integer> corner = cache.register("corner", node -> node == 99);
+
+    assertThat(cache.findClosest(0, corner)).containsExactly(99);
+    assertThat(cache.findClosest(0, "corner")).containsExactly(99);
+    assertThat(cache.getNodes(55, 3)).isEqualTo(network.getNodes(55, 3));
+    assertThat(cache.getNodes(55, 3)).isEqualTo(network.getNodes(55, 3));
+    assertThat(cache.getNodes(55, 4)).isEqualTo(network.getNodes(55, 4));
+
+    assertThat(cache.getStats().hitCount()).isEqualTo(2);
+    assertThat(cache.getStats().missCount()).isEqualTo(3);
+    assertThat(cache.size()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldEvictByWeight() {
+    Network<Integer> network = Network.createGridNetwork(10, 10, neighbourDXs, neighbourDYs);
+    QueryCache<Integer> cache = new QueryCache<>(network, 20);
+
+    for (int start = 0; start < 100; start++) {
+      cache.getNodes(start, 2);
+    }
+
+    assertThat(cache.getStats().evictionCount()).isGreaterThan(0);
+    assertThat(cache.size()).isLessThanOrEqualTo(10);
+  }
+
+  @Test
+  public void shouldInvalidateOnMerge() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(3),
+            ImmutableSet.of(new Edge<>(0, 1, 1), new Edge<>(1, 2, 1)));
+    QueryCache<Integer> cache = new QueryCache<>(network, 100);
+    NamedPredicate<Integer> two = cache.register("two", node -> node == 2);
+
+    assertThat(cache.getNodes(0, 2)).containsExactlyInAnyOrder(0, 1);
+    cache.findClosest(0, two);
+
+    Network<Integer> merged = cache.merge(new Network<>(TestUtils.generateNodes(3),
+            ImmutableSet.of(new Edge<>(0, 2, 1))));
+
+    assertThat(cache.getNetwork()).isSameAs(merged);
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(cache.getNodes(0, 2)).containsExactlyInAnyOrder(0, 1, 2);
+    assertThat(cache.findClosest(0, two)).containsExactly(2);
+  }
+
+  @Test
+  public void shouldDropResultsAfterCostUpdate() {
+    Edge<Integer> slow = new Edge<>(0, 1, 5);
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(2), ImmutableSet.of(slow));
+    QueryCache<Integer> cache = new QueryCache<>(network, 100);
+
+    assertThat(cache.getNodes(0, 2)).containsExactly(0);
+    assertThat(cache.getNodes(1, 2)).containsExactly(1);
+    assertThat(cache.size()).isEqualTo(2);
+    network.updateCost(slow, 1);
+
+    assertThat(cache.getNodes(0, 2)).containsExactlyInAnyOrder(0, 1);
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.getStats().hitCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldSearchOnceForConcurrentMisses() throws Exception {
+    Network<Integer> network = Network.createGridNetwork(10, 10, neighbourDXs, neighbourDYs);
+    AtomicInteger searches = new AtomicInteger();
+    network.setSearchListener(stats -> searches.incrementAndGet());
+    QueryCache<Integer> cache = new QueryCache<>(network, 1000);
+    NamedPredicate<Integer> slowCorner = cache.register("slowCorner", node -> {
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return node == 99;
+    });
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      CountDownLatch ready = new CountDownLatch(4);
+      List<Future<Set<Integer>>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        results.add(executor.submit(() -> {
+          ready.countDown();
+          ready.await();
+          return cache.findClosest(0, slowCorner);
+        }));
+      }
+      for (Future<Set<Integer>> result : results) {
+        assertThat(result.get()).containsExactly(99);
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(searches.get()).isEqualTo(1);
+    assertThat(cache.getStats().loadCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldPassOnExceptionsFromSearches() {
+    Network<Integer> network = Network.createGridNetwork(3, 3, neighbourDXs, neighbourDYs);
+    QueryCache<Integer> cache = new QueryCache<>(network, 100);
+    NamedPredicate<Integer> broken = cache.register("broken", node -> {
+      throw new IllegalStateException("broken");
+    });
+
+    assertThatThrownBy(() -> cache.findClosest(0, broken)).isInstanceOf(IllegalStateException.class)
+            .hasMessage("broken");
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldRejectConflictingOrUnknownPredicates() {
+    Network<Integer> network = Network.createGridNetwork(3, 3, neighbourDXs, neighbourDYs);
+    QueryCache<Integer> cache = new QueryCache<>(network, 100);
+    Predicate<Integer> even = node -> node % 2 == 0;
+
+    assertThat(cache.register("even", even)).isSameAs(cache.register("even", even));
+    assertThatThrownBy(() -> cache.register("even", node -> node % 2 == 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> cache.findClosest(0, "odd")).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new QueryCache<>(network, 100).findClosest(0, cache.register("even", even)))
+            .isInstanceOf(IllegalArgumentException.class);
+  }
+
+}
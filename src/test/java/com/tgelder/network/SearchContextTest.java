@@ -0,0 +1,40 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchContextTest {
+
+  @Test
+  public void testReuseAcrossQueriesAndNetworks() {
+    Network<Integer> small = new Network<>(TestUtils.generateNodes(3),
+            ImmutableSet.of(new Edge<>(0, 1, 1), new Edge<>(1, 2, 1)));
+    Network<Integer> large = Network.createGridNetwork(10, 10, new int[]{1, 0, -1, 0}, new int[]{0, 1, 0, -1});
+    SearchContext context = new SearchContext();
+
+    assertThat(small.findClosest(0, node -> node == 2, context)).containsOnly(2);
+    assertThat(large.getNodes(0, 2, context)).containsOnly(0, 1, 10);
+    assertThat(small.getNodes(0, 2, context)).containsOnly(0, 1);
+    assertThat(large.findClosest(99, node -> node == 0, context)).containsOnly(0);
+    assertThat(small.findClosest(2, node -> node == 0, context)).isEmpty();
+  }
+
+  @Test
+  public void testStampsDoNotLeakBetweenSearches() {
+    IntNetwork network = new IntNetwork(4, new int[]{0, 2}, new int[]{1, 3}, new double[]{1, 1});
+    SearchContext context = new SearchContext();
+
+    context.start(network, 0, true, null);
+    while (context.next() >= 0) {
+    }
+    assertThat(context.isSettled(1)).isTrue();
+
+    context.start(network, 2, true, null);
+    assertThat(context.isReached(1)).isFalse();
+    assertThat(context.getCost(0)).isEqualTo(Double.POSITIVE_INFINITY);
+    assertThat(context.getCost(2)).isEqualTo(0);
+  }
+
+}
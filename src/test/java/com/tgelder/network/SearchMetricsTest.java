@@ -0,0 +1,123 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchMetricsTest {
+
+  private Network<Integer> network;
+  private List<SearchStats> reported;
+
+  @Before
+  public void setUp() {
+    network = new Network<>(TestUtils.generateNodes(5), ImmutableSet.of(
+            new Edge<>(0, 1, 1),
+            new Edge<>(1, 2, 1),
+            new Edge<>(2, 3, 1),
+            new Edge<>(0, 2, 5)));
+    reported = new ArrayList<>();
+    network.setSearchListener(reported::add);
+  }
+
+  @Test
+  public void shouldReportFindClosest() {
+    network.findClosest(0, node -> node == 2);
+
+    assertThat(reported).hasSize(1);
+    SearchStats stats = reported.get(0);
+    assertThat(stats.getQueryType()).isEqualTo(QueryType.FIND_CLOSEST);
+    assertThat(stats.getSettledNodes()).isEqualTo(4);
+    assertThat(stats.getRelaxedEdges()).isEqualTo(4);
+    assertThat(stats.getPeakOpenSize()).isEqualTo(2);
+    assertThat(stats.getNanos()).isGreaterThanOrEqualTo(0);
+    assertThat(stats.getTermination()).isEqualTo(Termination.MATCH_FOUND);
+  }
+
+  @Test
+  public void shouldReportWhyGetNodesStopped() {
+    network.getNodes(0, 2);
+    network.getNodes(0, 10);
+
+    assertThat(reported).extracting(SearchStats::getQueryType)
+            .containsExactly(QueryType.GET_NODES, QueryType.GET_NODES);
+    assertThat(reported).extracting(SearchStats::getTermination)
+            .containsExactly(Termination.COST_LIMIT, Termination.EXHAUSTED);
+    assertThat(reported.get(1).getSettledNodes()).isEqualTo(4);
+  }
+
+  @Test
+  public void shouldReportFindClosestThroughComponentIndex() {
+    Network<Integer> grid = Network.createGridNetwork(3, 3, new int[]{-1, 0, 1, 0}, new int[]{0, -1, 0, 1});
+    grid.setSearchListener(reported::add);
+    ComponentIndex<Integer> components = grid.getComponentIndex();
+
+    assertThat(components.findClosest(0, components.createTargetClass(node -> node == 4))).containsExactly(4);
+    assertThat(components.findClosest(0, components.createTargetClass(node -> false))).isEmpty();
+
+    assertThat(reported).extracting(SearchStats::getQueryType)
+            .containsExactly(QueryType.FIND_CLOSEST, QueryType.FIND_CLOSEST);
+    assertThat(reported).extracting(SearchStats::getTermination)
+            .containsExactly(Termination.MATCH_FOUND, Termination.EXHAUSTED);
+    assertThat(reported.get(0).getSettledNodes()).isBetween(4L, 8L);
+    assertThat(reported.get(1).getSettledNodes()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldReportPathQueries() {
+    network.findPath(0, 3);
+    network.distance(0, 4);
+    network.findKClosest(0, node -> node > 0, 2);
+    network.getIsochrone(0, 1, 2);
+
+    assertThat(reported).extracting(SearchStats::getQueryType)
+            .containsExactly(QueryType.FIND_PATH, QueryType.DISTANCE, QueryType.FIND_K_CLOSEST, QueryType.ISOCHRONE);
+    assertThat(reported).extracting(SearchStats::getTermination).containsExactly(
+            Termination.GOAL_REACHED, Termination.EXHAUSTED, Termination.MATCH_FOUND, Termination.COST_LIMIT);
+  }
+
+  @Test
+  public void shouldStopReportingWhenListenerRemoved() {
+    network.findClosest(99, node -> true);
+    network.setSearchListener(null);
+    network.findClosest(0, node -> true);
+
+    assertThat(reported).isEmpty();
+  }
+
+  @Test
+  public void shouldAggregateQueries() {
+    SearchMetrics metrics = new SearchMetrics();
+    network.setSearchListener(metrics);
+
+    network.findClosest(0, node -> node == 2);
+    network.findClosest(0, node -> node == 4);
+    network.getNodes(0, 10);
+
+    assertThat(metrics.getQueryCount(QueryType.FIND_CLOSEST)).isEqualTo(2);
+    assertThat(metrics.getQueryCount(QueryType.GET_NODES)).isEqualTo(1);
+    assertThat(metrics.getQueryCount(QueryType.FIND_PATH)).isEqualTo(0);
+    assertThat(metrics.getSettledNodes(QueryType.FIND_CLOSEST)).isEqualTo(8);
+    assertThat(metrics.getTerminationCount(QueryType.FIND_CLOSEST, Termination.MATCH_FOUND)).isEqualTo(1);
+    assertThat(metrics.getTerminationCount(QueryType.FIND_CLOSEST, Termination.EXHAUSTED)).isEqualTo(1);
+    assertThat(Arrays.stream(metrics.getLatencyHistogram(QueryType.FIND_CLOSEST)).sum()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldEstimateLatencyPercentiles() {
+    SearchMetrics metrics = new SearchMetrics();
+    metrics.onSearch(new SearchStats(QueryType.DISTANCE, 0, 0, 0, 500, Termination.GOAL_REACHED));
+    metrics.onSearch(new SearchStats(QueryType.DISTANCE, 0, 0, 0, 3000, Termination.GOAL_REACHED));
+
+    assertThat(metrics.getLatencyPercentileMicros(QueryType.DISTANCE, 50)).isEqualTo(1);
+    assertThat(metrics.getLatencyPercentileMicros(QueryType.DISTANCE, 100)).isEqualTo(4);
+    assertThat(metrics.getLatencyPercentileMicros(QueryType.FIND_PATH, 50)).isEqualTo(0);
+  }
+
+}
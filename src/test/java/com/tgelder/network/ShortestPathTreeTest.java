@@ -0,0 +1,136 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShortestPathTreeTest {
+
+  private static void assertMatchesFreshSearch(Network<Integer> network, ShortestPathTree<Integer> tree) {
+    Network<Integer> copy = new Network<>(network.getNodes(), network.getEdges().stream()
+            .map(e -> new Edge<>(e.getFrom(), e.getTo(), e.getCost()))
+            .collect(ImmutableSet.toImmutableSet()));
+    for (Integer node : network.getNodes()) {
+      OptionalDouble expected = copy.distance(tree.getSource(), node);
+      assertThat(tree.getCost(node).isPresent()).isEqualTo(expected.isPresent());
+      assertThat(network.distance(tree.getSource(), node).isPresent()).isEqualTo(expected.isPresent());
+      if (expected.isPresent()) {
+        assertThat(tree.getCost(node).getAsDouble()).isCloseTo(expected.getAsDouble(), TestUtils.PRECISION);
+        assertThat(network.distance(tree.getSource(), node).getAsDouble())
+                .isCloseTo(expected.getAsDouble(), TestUtils.PRECISION);
+        Path<Integer> path = tree.getPath(node).get();
+        assertThat(path.getEnd()).isEqualTo(node);
+        assertThat(path.getEdges().stream().mapToDouble(Edge::getCost).sum())
+                .isCloseTo(expected.getAsDouble(), TestUtils.PRECISION);
+      }
+    }
+  }
+
+  @Test
+  public void shouldRepairAfterBatchesOfUpdates() {
+    Random random = new Random(1);
+    Network<Integer> network = TestUtils.randomNetwork(random, 100, 300, 10);
+    ShortestPathTree<Integer> tree = network.createShortestPathTree(0);
+    assertMatchesFreshSearch(network, tree);
+
+    for (int batch = 0; batch < 50; batch++) {
+      ImmutableList<Edge<Integer>> edges = network.getEdges().asList();
+      Map<Edge<Integer>, Double> updates = new HashMap<>();
+      for (int i = 0; i < 5; i++) {
+        updates.put(edges.get(random.nextInt(edges.size())), random.nextInt(5) == 0 ? 1000.0 : random.nextInt(12));
+      }
+      network.updateCosts(updates);
+      assertMatchesFreshSearch(network, tree);
+    }
+  }
+
+  @Test
+  public void shouldFindDetourWhenTreeEdgeGetsExpensive() {
+    Edge<Integer> direct = new Edge<>(0, 1, 1);
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(4), ImmutableSet.of(
+            direct, new Edge<>(1, 2, 1), new Edge<>(0, 3, 2), new Edge<>(3, 1, 2)));
+    ShortestPathTree<Integer> tree = network.createShortestPathTree(0);
+
+    network.updateCost(direct, 10);
+
+    assertThat(tree.getCost(2).getAsDouble()).isEqualTo(5);
+    assertThat(tree.getPath(2).get().getNodes()).containsExactly(0, 3, 1, 2);
+    assertThat(tree.getNodes(5)).containsExactlyInAnyOrder(0, 3, 1);
+  }
+
+  @Test
+  public void closedTreesAreNotRepaired() {
+    Edge<Integer> edge = new Edge<>(0, 1, 1);
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(2), ImmutableSet.of(edge));
+    ShortestPathTree<Integer> tree = network.createShortestPathTree(0);
+    tree.close();
+
+    network.updateCost(edge, 3);
+
+    assertThat(tree.getCost(1).getAsDouble()).isEqualTo(1);
+    assertThat(network.distance(0, 1).getAsDouble()).isEqualTo(3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectEdgesFromOtherNetworks() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(2), ImmutableSet.of(new Edge<>(0, 1, 1)));
+
+    network.updateCost(new Edge<>(0, 1, 1), 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInfiniteCosts() {
+    Edge<Integer> edge = new Edge<>(0, 1, 1);
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(2), ImmutableSet.of(edge));
+
+    network.updateCost(edge, Double.POSITIVE_INFINITY);
+  }
+
+  @Test
+  public void shouldTrackCheapestOfParallelEdges() {
+    Edge<Integer> cheap = new Edge<>(0, 1, 1);
+    Edge<Integer> dear = new Edge<>(0, 1, 4);
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(2), ImmutableSet.of(cheap, dear));
+    ShortestPathTree<Integer> tree = network.createShortestPathTree(0);
+
+    dear = network.updateCost(dear, 3);
+    assertThat(tree.getCost(1).getAsDouble()).isEqualTo(1);
+
+    cheap = network.updateCost(cheap, 6);
+    assertThat(tree.getCost(1).getAsDouble()).isEqualTo(3);
+    assertThat(tree.getPath(1).get().getEdges()).containsExactly(dear);
+
+    Map<Edge<Integer>, Double> updates = new HashMap<>();
+    updates.put(cheap, 0.5);
+    updates.put(dear, 0.25);
+    network.updateCosts(updates);
+    assertThat(tree.getCost(1).getAsDouble()).isEqualTo(0.25);
+    assertThat(network.distance(0, 1).getAsDouble()).isEqualTo(0.25);
+  }
+
+  @Test
+  public void shouldReplaceEdgesWithoutChangingOtherNetworks() {
+    Edge<Integer> edge = new Edge<>(0, 1, 1);
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(2), ImmutableSet.of(edge));
+    Network<Integer> merged = network.merge(new Network<>(TestUtils.generateNodes(3), ImmutableSet.of()));
+
+    Edge<Integer> replacement = network.updateCost(edge, 4);
+
+    assertThat(edge.getCost()).isEqualTo(1);
+    assertThat(replacement.getCost()).isEqualTo(4);
+    assertThat(network.getEdges()).containsExactly(replacement);
+    assertThat(network.getOut(0)).containsExactlyElementsOf(ImmutableList.of(replacement));
+    assertThat(network.getIn(1)).containsExactlyElementsOf(ImmutableList.of(replacement));
+    assertThat(network.distance(0, 1).getAsDouble()).isEqualTo(4);
+    assertThat(merged.getEdges()).containsExactly(edge);
+    assertThat(merged.distance(0, 1).getAsDouble()).isEqualTo(1);
+  }
+
+}
@@ -0,0 +1,59 @@
+package com.tgelder.network;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StreamTest {
+
+  private final int[] neighbourDXs = {-1, 0, 1, 0};
+  private final int[] neighbourDYs = {0, -1, 0, 1};
+
+  @Test
+  public void shouldReturnNodesInCostOrder() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(4),
+            ImmutableSet.of(new Edge<>(0, 1, 3), new Edge<>(0, 2, 1), new Edge<>(2, 1, 1), new Edge<>(3, 0, 1)));
+
+    List<Reached<Integer>> reached = network.stream(0).collect(Collectors.toList());
+
+    assertThat(reached).extracting(Reached::getNode).containsExactly(0, 2, 1);
+    assertThat(reached).extracting(Reached::getCost).containsExactly(0.0, 1.0, 2.0);
+  }
+
+  @Test
+  public void shouldMatchGetNodes() {
+    Network<Integer> network = Network.createGridNetwork(16, 16, neighbourDXs, neighbourDYs);
+
+    assertThat(network.stream(17).filter(r -> r.getCost() < 5).map(Reached::getNode).collect(Collectors.toSet()))
+            .isEqualTo(network.getNodes(17, 5));
+  }
+
+  @Test
+  public void shouldSearchOnlyAsFarAsConsumed() {
+    Network<Integer> network = Network.createGridNetwork(32, 32, neighbourDXs, neighbourDYs);
+    SearchContext context = new SearchContext();
+
+    assertThat(network.stream(0, context).anyMatch(r -> r.getNode() == 2)).isTrue();
+    assertThat(context.getSettledCount()).isLessThan(10);
+    assertThat(context.isDrained()).isFalse();
+
+    assertThat(network.stream(0, context).limit(3).count()).isEqualTo(3);
+    assertThat(context.getSettledCount()).isEqualTo(3);
+
+    assertThat(network.stream(0, context).count()).isEqualTo(32 * 32);
+    assertThat(context.getSettledCount()).isEqualTo(32 * 32);
+    assertThat(context.isDrained()).isTrue();
+  }
+
+  @Test
+  public void shouldReturnUnknownStartAlone() {
+    Network<Integer> network = new Network<>(TestUtils.generateNodes(2), ImmutableSet.of(new Edge<>(0, 1, 1)));
+
+    assertThat(network.stream(5).map(Reached::getNode).collect(Collectors.toList())).containsExactly(5);
+  }
+
+}
@@ -3,6 +3,7 @@ package com.tgelder.network;
 import com.google.common.collect.ImmutableSet;
 import org.assertj.core.data.Offset;
 
+import java.util.Random;
 import java.util.stream.IntStream;
 
 public class TestUtils {
@@ -13,4 +14,16 @@ public class TestUtils {
     return IntStream.range(0, howMany).boxed().collect(ImmutableSet.toImmutableSet());
   }
 
+  /**
+   * Returns a network on the given number of nodes with edges between random nodes, costing whole numbers from 1 to
+   * maxCost.
+   */
+  public static Network<Integer> randomNetwork(Random random, int nodes, int edges, int maxCost) {
+    ImmutableSet.Builder<Edge<Integer>> builder = ImmutableSet.builder();
+    for (int i = 0; i < edges; i++) {
+      builder.add(new Edge<>(random.nextInt(nodes), random.nextInt(nodes), 1 + random.nextInt(maxCost)));
+    }
+    return new Network<>(generateNodes(nodes), builder.build());
+  }
+
 }